@@ -19,6 +19,11 @@ import net.named_data.jndn.Interest;
 import net.named_data.jndn.Name;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -44,7 +49,7 @@ public interface Client {
   /**
    * Convenience method for calling
    * {@link #getAsync(net.named_data.jndn.Face, net.named_data.jndn.Interest)}
-   * with a default {@link Interest} packet.
+   * with a default {@link Interest} packet (see {@link #getDefaultInterest(Name)}).
    *
    * @param face the {@link Face} on which to make the request; call
    * {@link Face#processEvents()} separately to complete the request
@@ -53,14 +58,74 @@ public interface Client {
    */
   CompletableFuture<Data> getAsync(Face face, Name name);
 
+  /**
+   * Asynchronously request the Data for many Interests; Interests with the
+   * same name are only sent once. As with {@link #getAsync(Face, Interest)},
+   * the user is responsible for calling {@link Face#processEvents()} in order
+   * for the {@link CompletableFuture} to complete. By default, every Interest
+   * is sent at once with {@link #getAsync(Face, Interest)}; implementations
+   * may instead cap the number of Interests outstanding at a time.
+   *
+   * @param face the {@link Face} on which to make the requests; call
+   * {@link Face#processEvents()} separately to complete the requests
+   * @param interests the {@link Interest}s to send over the network
+   * @return a future map of each distinct Interest name to its {@link Data}
+   * packet, in request order; the future completes exceptionally if any
+   * request fails
+   */
+  default CompletableFuture<Map<Name, Data>> getAllAsync(Face face, Collection<Interest> interests) {
+    Map<Name, CompletableFuture<Data>> requests = new LinkedHashMap<>();
+    for (Interest interest : interests) {
+      if (!requests.containsKey(interest.getName())) {
+        requests.put(interest.getName(), getAsync(face, interest));
+      }
+    }
+    return CompletableFuture.allOf(requests.values().toArray(new CompletableFuture<?>[requests.size()])).thenApply(v -> {
+      Map<Name, Data> results = new LinkedHashMap<>();
+      requests.forEach((name, request) -> results.put(name, request.join()));
+      return results;
+    });
+  }
+
+  /**
+   * Convenience method for calling
+   * {@link #getAllAsync(Face, Collection)} with default {@link Interest}
+   * packets (see {@link #getDefaultInterest(Name)}).
+   *
+   * @param face the {@link Face} on which to make the requests; call
+   * {@link Face#processEvents()} separately to complete the requests
+   * @param names the {@link Name}s to wrap inside default {@link Interest}s
+   * @return a future map of each distinct name to its {@link Data} packet, in
+   * request order
+   */
+  default CompletableFuture<Map<Name, Data>> getAllAsync(Face face, Iterable<Name> names) {
+    List<Interest> interests = new ArrayList<>();
+    for (Name name : names) {
+      interests.add(getDefaultInterest(name));
+    }
+    return getAllAsync(face, interests);
+  }
+
+  /**
+   * Create the default {@link Interest} that the convenience methods taking a
+   * {@link Name} wrap the name in; by default, an Interest with jndn's default
+   * settings.
+   *
+   * @param name the {@link Name} of the data to retrieve
+   * @return a default interest for the given name
+   */
+  default Interest getDefaultInterest(Name name) {
+    return new Interest(name);
+  }
+
   /**
    * Synchronously retrieve the {@link Data} for an {@link Interest}; this will
    * block until complete (i.e. either the data is received or the interest
    * times out).
    *
    * @param face the {@link Face} on which to make the request; this method will
-   * call {@link Face#processEvents()} at a configurable interval until complete
-   * or timeout
+   * call {@link Face#processEvents()} as bytes arrive (or at a configurable
+   * interval) until complete or timeout
    * @param interest the {@link Interest} to send over the network
    * @return a {@link Data} packet
    * @throws java.io.IOException if the request fails
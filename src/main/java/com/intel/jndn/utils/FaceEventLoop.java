@@ -0,0 +1,78 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils;
+
+import net.named_data.jndn.Face;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Own a {@link Face} and drive it from a single thread: the loop processes the
+ * face's events, blocking while there are none, and runs work submitted by
+ * clients, servers and publishers on that same thread so that the
+ * (non-thread-safe) face is never used concurrently.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public interface FaceEventLoop extends Runnable {
+
+  /**
+   * @return the face driven by this loop
+   */
+  Face getFace();
+
+  /**
+   * @param task the work to run on the loop thread, after any previously
+   * submitted work
+   * @throws java.util.concurrent.RejectedExecutionException if the loop has
+   * stopped
+   */
+  void execute(Runnable task);
+
+  /**
+   * @param task the work to run on the loop thread
+   * @param <T> the type of the result
+   * @return a future completed with the task's result or exception once it has
+   * run, or with a {@link java.util.concurrent.RejectedExecutionException} if
+   * the loop stops first
+   */
+  <T> CompletableFuture<T> submit(Callable<T> task);
+
+  /**
+   * @param task the work to run on the loop thread
+   * @param delayMs the time to wait before running the task, in milliseconds
+   * @throws java.util.concurrent.RejectedExecutionException if the loop has
+   * stopped
+   */
+  void schedule(Runnable task, long delayMs);
+
+  /**
+   * @return true if the calling thread is the loop thread
+   */
+  boolean inEventLoop();
+
+  /**
+   * Process events until {@link #shutdown()} is called
+   */
+  @Override
+  void run();
+
+  /**
+   * Stop the loop once the current iteration completes; pending tasks are
+   * discarded and the futures of pending submissions fail
+   */
+  void shutdown();
+}
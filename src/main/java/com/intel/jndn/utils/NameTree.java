@@ -67,16 +67,56 @@ public interface NameTree<T> {
   Optional<NameTree<T>> find(Name query);
 
   /**
+   * @param component the last component of the child's name
+   * @return the child of this node with the given component or {@code null} if there is none
+   */
+  NameTree<T> child(Name.Component component);
+
+  /**
+   * Find a node without allocating intermediate names or {@link Optional}s; this is the preferred lookup for hot paths
+   *
+   * @param name the name to use as a path through the tree
+   * @param length the number of leading components of the name to follow; e.g. {@code name.size()} finds the node for
+   * the full name and {@code name.size() - 1} the node for its prefix
+   * @return the node at the end of the path or {@code null} if there is none
+   */
+  default NameTree<T> lookup(Name name, int length) {
+    NameTree<T> node = this;
+    for (int i = 0; i < length && node != null; i++) {
+      node = node.child(name.get(i));
+    }
+    return node;
+  }
+
+  /**
+   * Remove the content stored at the name; the node is removed from the tree once it has no children, as is each
+   * ancestor left without content or children, so the tree only holds the paths to live content
+   *
    * @param name the name to use as a path through the tree
-   * @return the removed node or an empty {@link Optional} if the node was not found
+   * @return the node whose content was removed or an empty {@link Optional} if the node was not found
    */
   Optional<NameTree<T>> delete(Name name);
 
   /**
-   * @return the count of all nodes in the tree below this one that are non-empty (e.g. have some content)
+   * Remove the node and all nodes beneath it; each ancestor left without content or children is removed as well
+   *
+   * @param prefix the name to use as a path through the tree
+   * @return the root of the removed subtree or an empty {@link Optional} if the node was not found
+   */
+  Optional<NameTree<T>> deleteSubtree(Name prefix);
+
+  /**
+   * @return the count of all nodes in the subtree rooted at this node (including this node) that are non-empty (e.g.
+   * have some content)
    */
   int count();
 
+  /**
+   * @return the total weight of the content in the subtree rooted at this node (including this node), as measured by
+   * the weigher the tree was built with (e.g. content bytes); 0 if the tree has no weigher
+   */
+  long weight();
+
   /**
    * Remove all nodes beneath this one; will have no effect on a leaf node
    */
@@ -34,7 +34,8 @@ public interface PendingInterestTable {
 
   /**
    * @param interest the incoming interest to match against
-   * @return true if the interest matches an entry already in the PIT
+   * @return true if an entry with the interest's name is in the PIT or, if the interest has a child selector, if the
+   * interest matches the name of an entry in the PIT (i.e. one at or beneath the interest's name)
    */
   boolean has(Interest interest);
 
@@ -43,4 +44,10 @@ public interface PendingInterestTable {
    * @return the PIT entries matching a name, removing them from the PIT
    */
   Collection<Interest> extract(Name name);
+
+  /**
+   * @param interest a PIT entry previously added, e.g. one that was answered without extracting it
+   * @return true if the entry was in the PIT and has been removed
+   */
+  boolean remove(Interest interest);
 }
@@ -0,0 +1,79 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils;
+
+import net.named_data.jndn.Name;
+
+import java.util.Collection;
+
+/**
+ * Represent a tree of nodes whose children are kept in canonical NDN component order (see
+ * {@link Name.Component#compare(Name.Component)}); the leftmost and rightmost children can be found without sorting and
+ * the returned collections are views of the children, not copies.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public interface SortedNameTree<T> extends NameTree<T> {
+  /**
+   * {@inheritDoc}
+   *
+   * @return the node at the end of the path, itself sorted, or {@code null} if there is none
+   */
+  @Override
+  SortedNameTree<T> lookup(Name name, int length);
+
+  /**
+   * @return the leftmost child of this node or {@code null} if it has no children
+   */
+  SortedNameTree<T> first();
+
+  /**
+   * @return the rightmost child of this node or {@code null} if it has no children
+   */
+  SortedNameTree<T> last();
+
+  /**
+   * @param component a name component
+   * @return the leftmost child whose component is greater than or equal to the given component or {@code null} if
+   * there is none
+   */
+  SortedNameTree<T> ceiling(Name.Component component);
+
+  /**
+   * @param component a name component
+   * @return the rightmost child whose component is less than or equal to the given component or {@code null} if there
+   * is none
+   */
+  SortedNameTree<T> floor(Name.Component component);
+
+  /**
+   * @return a read-only view of the children of this node, from leftmost to rightmost
+   */
+  Collection<SortedNameTree<T>> ascendingChildren();
+
+  /**
+   * @return a read-only view of the children of this node, from rightmost to leftmost
+   */
+  Collection<SortedNameTree<T>> descendingChildren();
+
+  /**
+   * @param from the lowest component of the range; {@code null} to start at the leftmost child
+   * @param fromInclusive true if a child with the {@code from} component is part of the range
+   * @param to the highest component of the range; {@code null} to end at the rightmost child
+   * @param toInclusive true if a child with the {@code to} component is part of the range
+   * @return a read-only view of the children of this node within the range, from leftmost to rightmost
+   */
+  Collection<SortedNameTree<T>> children(Name.Component from, boolean fromInclusive, Name.Component to, boolean toInclusive);
+}
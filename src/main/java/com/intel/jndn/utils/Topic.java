@@ -48,7 +48,7 @@ public final class Topic {
   }
 
   /**
-   * @param face the face to use for network IO; must be driven externally (e.g. {@link Face#processEvents()})
+   * @param face the face to use for network IO; must be driven externally (e.g. by a {@link FaceEventLoop})
    * @param onMessage callback fired when a message is received
    * @param onError callback fired when an error happens after subscription
    * @return an open subscriber
@@ -59,7 +59,7 @@ public final class Topic {
   }
 
   /**
-   * @param face the face to use for network IO; must be driven externally (e.g. {@link Face#processEvents()})
+   * @param face the face to use for network IO; must be driven externally (e.g. by a {@link FaceEventLoop})
    * @return a factory-built publisher
    */
   public Publisher newPublisher(Face face) {
@@ -0,0 +1,41 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.client;
+
+import net.named_data.jndn.Interest;
+
+/**
+ * Define a consumer-side backpressure signal: a {@link SegmentedClient}
+ * consults it before sending each {@link Interest} and, when told to stop,
+ * waits to be resumed rather than blocking the thread processing the face's
+ * events.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public interface FlowControl {
+
+  /**
+   * @return true if the consumer can accept more data, i.e. more Interests may
+   * be sent; once this returns false, the consumer must eventually fire the
+   * callbacks registered with {@link #onResumed(Runnable)}
+   */
+  boolean canRequest();
+
+  /**
+   * @param callback fired, possibly on the consumer's thread, when the consumer
+   * can again accept data after {@link #canRequest()} returned false
+   */
+  void onResumed(Runnable callback);
+}
@@ -0,0 +1,68 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.client;
+
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+
+/**
+ * Define an estimator of round-trip times for retrieving data under a given
+ * name prefix; clients use the estimates to choose {@link Interest} lifetimes
+ * and retransmission timers instead of a fixed timeout.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public interface RttEstimator {
+
+  /**
+   * Record a round-trip time measurement; per Karn's algorithm, callers should
+   * only measure requests that were not retransmitted
+   *
+   * @param name the {@link Name} of the request measured
+   * @param rttMilliseconds the time between sending the {@link Interest} and
+   * receiving its data
+   */
+  void addMeasurement(Name name, double rttMilliseconds);
+
+  /**
+   * Back off the retransmission timeout after a request under the given name
+   * timed out; per Karn's algorithm, only the component retransmitting the
+   * request should call this, once per timeout
+   *
+   * @param name the {@link Name} of the request that timed out
+   */
+  void backoff(Name name);
+
+  /**
+   * @param name the {@link Name} of the data to retrieve
+   * @return the time in milliseconds to wait before considering a request
+   * lost; suitable for use as an {@link Interest} lifetime
+   */
+  double getRetransmissionTimeout(Name name);
+
+  /**
+   * @param name the {@link Name} of the data to retrieve
+   * @return the smoothed round-trip time in milliseconds or -1 if no
+   * measurements apply to this name
+   */
+  double getSmoothedRtt(Name name);
+
+  /**
+   * @param name the {@link Name} of the data to retrieve
+   * @return the round-trip time variation in milliseconds or -1 if no
+   * measurements apply to this name
+   */
+  double getRttVariation(Name name);
+}
@@ -37,4 +37,19 @@ public interface SegmentedClient {
    * @throws IOException if the initial request fails
    */
   DataStream getSegmentsAsync(Face face, Interest interest) throws IOException;
+
+  /**
+   * Asynchronously request packets as in {@link #getSegmentsAsync(Face, Interest)}
+   * but only as fast as the consumer accepts them; implementations that do not
+   * support flow control ignore it.
+   *
+   * @param face the {@link Face} on which to retry requests
+   * @param interest the {@link Interest} to retry
+   * @param flowControl consulted before sending each follow-on request
+   * @return a data stream of packets returned
+   * @throws IOException if the initial request fails
+   */
+  default DataStream getSegmentsAsync(Face face, Interest interest, FlowControl flowControl) throws IOException {
+    return getSegmentsAsync(face, interest);
+  }
 }
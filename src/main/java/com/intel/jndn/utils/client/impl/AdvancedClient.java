@@ -13,10 +13,12 @@
  */
 package com.intel.jndn.utils.client.impl;
 
+import com.intel.jndn.utils.Cancellation;
 import com.intel.jndn.utils.client.DataStream;
 import com.intel.jndn.utils.client.OnComplete;
 import com.intel.jndn.utils.client.OnException;
 import com.intel.jndn.utils.client.RetryClient;
+import com.intel.jndn.utils.client.RttEstimator;
 import com.intel.jndn.utils.client.SegmentationType;
 import com.intel.jndn.utils.client.SegmentedClient;
 import com.intel.jndn.utils.client.StreamingClient;
@@ -34,6 +36,12 @@ import java.util.logging.Logger;
 /**
  * Implementation of a client that can handle segmented data, retries after
  * failed requests, and streaming of data packets.
+ * <p>
+ * Unlike {@link SimpleClient}, this client does not coalesce concurrent
+ * requests: each request assembles its own segment stream and retries its own
+ * failures, so requests sharing one stream would also share its retries and
+ * failure. Use a coalescing {@link SimpleClient} for unsegmented data requested
+ * by many callers at once.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
@@ -49,8 +57,8 @@ public class AdvancedClient extends SimpleClient implements SegmentedClient, Str
   /**
    * Build an advanced client
    *
-   * @param sleepTime for synchronous processing, the time to sleep the thread
-   * between {@link Face#processEvents()}
+   * @param sleepTime for synchronous processing, the maximum time to block the
+   * thread between {@link Face#processEvents()} while no bytes arrive
    * @param interestLifetime the {@link Interest} lifetime for default
    * Interests; see
    * {@link #getAsync(net.named_data.jndn.Face, net.named_data.jndn.Name)}
@@ -68,6 +76,28 @@ public class AdvancedClient extends SimpleClient implements SegmentedClient, Str
     this.streamingClient = streamingClient;
   }
 
+  /**
+   * Build an advanced client that adapts default {@link Interest} lifetimes to
+   * the measured round-trip times; pass the same estimator to the segmented and
+   * retry clients so that they share measurements
+   *
+   * @param sleepTime for synchronous processing, the maximum time to block the
+   * thread between {@link Face#processEvents()} while no bytes arrive
+   * @param rttEstimator the estimator to take default Interest lifetimes from
+   * @param segmentedClient the {@link SegmentedClient} to use for segmented
+   * data
+   * @param retryClient the {@link RetryClient} to use for retrying failed
+   * packets
+   * @param streamingClient the {@link StreamingClient} to use for segmented
+   * data
+   */
+  public AdvancedClient(long sleepTime, RttEstimator rttEstimator, SegmentedClient segmentedClient, RetryClient retryClient, StreamingClient streamingClient) {
+    super(sleepTime, rttEstimator, false, false); // the retry client backs the estimator off when it retries
+    this.segmentedClient = segmentedClient;
+    this.retryClient = retryClient;
+    this.streamingClient = streamingClient;
+  }
+
   /**
    * Build an advanced client using default parameters
    */
@@ -122,6 +152,23 @@ public class AdvancedClient extends SimpleClient implements SegmentedClient, Str
     return future;
   }
 
+  /**
+   * Retrieve each Interest of a batch as segmented data, with retries; see
+   * {@link #getAsync(Face, Interest)}
+   */
+  @Override
+  Cancellation send(Face face, Interest interest, Batch batch) {
+    CompletableFuture<Data> future = getAsync(face, interest);
+    future.whenComplete((data, failure) -> {
+      if (failure == null) {
+        batch.complete(interest, data);
+      } else {
+        batch.fail(failure);
+      }
+    });
+    return () -> future.cancel(true);
+  }
+
   /**
    * {@inheritDoc}
    */
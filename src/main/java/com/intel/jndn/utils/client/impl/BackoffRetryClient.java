@@ -15,6 +15,7 @@
 package com.intel.jndn.utils.client.impl;
 
 import com.intel.jndn.utils.client.RetryClient;
+import com.intel.jndn.utils.client.RttEstimator;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
 import net.named_data.jndn.OnData;
@@ -25,6 +26,11 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * Retry requests with exponentially increasing Interest lifetimes until the
+ * lifetime would exceed a cutoff. If built with an {@link RttEstimator}, each
+ * failure also backs off the estimator and the retried lifetime is never
+ * shorter than the estimator's resulting retransmission timeout.
+ *
  * @author Andrew Brown, andrew.brown@intel.com
  */
 public class BackoffRetryClient implements RetryClient {
@@ -32,10 +38,23 @@ public class BackoffRetryClient implements RetryClient {
   private static final Logger LOGGER = Logger.getLogger(BackoffRetryClient.class.getName());
   private final double cutoffLifetime;
   private final int backoffFactor;
+  private final RttEstimator rttEstimator;
 
   public BackoffRetryClient(double cutoffLifetime, int backoffFactor) {
+    this(cutoffLifetime, backoffFactor, null);
+  }
+
+  /**
+   * @param cutoffLifetime the Interest lifetime in milliseconds at which to
+   * stop retrying
+   * @param backoffFactor the factor by which to multiply the lifetime on each
+   * retry
+   * @param rttEstimator the estimator to back off on failures; may be null
+   */
+  public BackoffRetryClient(double cutoffLifetime, int backoffFactor, RttEstimator rttEstimator) {
     this.cutoffLifetime = cutoffLifetime;
     this.backoffFactor = backoffFactor;
+    this.rttEstimator = rttEstimator;
   }
 
   @Override
@@ -45,6 +64,10 @@ public class BackoffRetryClient implements RetryClient {
 
   private void retryInterest(Face face, Interest interest, OnData onData, OnTimeout onTimeout) throws IOException {
     double newLifetime = interest.getInterestLifetimeMilliseconds() * backoffFactor;
+    if (rttEstimator != null) {
+      rttEstimator.backoff(interest.getName());
+      newLifetime = Math.max(newLifetime, rttEstimator.getRetransmissionTimeout(interest.getName()));
+    }
     if (newLifetime < cutoffLifetime) {
       interest.setInterestLifetimeMilliseconds(newLifetime);
       resend(face, interest, onData, onTimeout);
@@ -17,8 +17,9 @@ import com.intel.jndn.utils.impl.SegmentationHelper;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.util.Blob;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 
 /**
  * Internal class for assembling a list of {@link Data} packets into one large
@@ -29,6 +30,7 @@ import java.io.IOException;
  */
 class DataAssembler {
 
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
   private final Data[] packets;
   private final byte marker;
 
@@ -71,10 +73,71 @@ class DataAssembler {
       return packets[0].getContent();
     }
 
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    return new Blob(assembleBuffer(false), false);
+  }
+
+  /**
+   * Copy the content of all packets, in order, into a single buffer sized up
+   * front from the packets' content sizes; each byte is copied exactly once
+   *
+   * @param direct true to allocate a direct buffer (e.g. for channel IO), false
+   * for a heap buffer
+   * @return a buffer positioned at zero and containing the concatenated bytes
+   */
+  ByteBuffer assembleBuffer(boolean direct) {
+    long total = 0;
     for (Data packet : packets) {
-      stream.write(packet.getContent().getImmutableArray());
+      total += packet.getContent().size();
+    }
+    if (total > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Content too large for a single buffer (" + total + " bytes); use contents() instead.");
+    }
+
+    ByteBuffer buffer = direct ? ByteBuffer.allocateDirect((int) total) : ByteBuffer.allocate((int) total);
+    for (ByteBuffer content : contents()) {
+      buffer.put(content);
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * @return a view of the content of each packet, in order, without copying;
+   * the buffers are read-only and independent of the packets' buffer positions
+   */
+  ByteBuffer[] contents() {
+    ByteBuffer[] contents = new ByteBuffer[packets.length];
+    for (int i = 0; i < packets.length; i++) {
+      Blob content = packets[i].getContent();
+      contents[i] = content.isNull() ? EMPTY : content.buf().asReadOnlyBuffer();
+    }
+    return contents;
+  }
+
+  /**
+   * Write the content of all packets, in order, to a channel using gathering
+   * writes, without assembling it first; the channel must be in blocking mode,
+   * since the content cannot be resumed from where a partial write stopped
+   *
+   * @param channel the channel to write to (e.g. a {@link java.nio.channels.FileChannel})
+   * @return the number of bytes written
+   * @throws IOException if the channel fails or accepts no bytes (e.g. a
+   * non-blocking channel whose buffer is full)
+   */
+  long writeTo(GatheringByteChannel channel) throws IOException {
+    ByteBuffer[] contents = contents();
+    long written = 0;
+    int first = 0;
+    while (first < contents.length) {
+      long bytes = channel.write(contents, first, contents.length - first);
+      if (bytes == 0 && contents[first].hasRemaining()) {
+        throw new IOException("Channel accepted no bytes after " + written + " bytes; it must be in blocking mode.");
+      }
+      written += bytes;
+      while (first < contents.length && !contents[first].hasRemaining()) {
+        first++;
+      }
     }
-    return new Blob(stream.toByteArray());
+    return written;
   }
 }
@@ -14,6 +14,7 @@
 package com.intel.jndn.utils.client.impl;
 
 import com.intel.jndn.utils.client.RetryClient;
+import com.intel.jndn.utils.client.RttEstimator;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
@@ -26,6 +27,9 @@ import java.util.logging.Logger;
 /**
  * Default implementation of {@link RetryClient}; on request failure, this class
  * immediately retries the request until a maximum number of retries is reached.
+ * If built with an {@link RttEstimator}, each failure backs off the estimator
+ * and the retried request's lifetime is set to the resulting retransmission
+ * timeout.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
@@ -33,10 +37,21 @@ public class DefaultRetryClient implements RetryClient {
 
   private static final Logger LOGGER = Logger.getLogger(DefaultRetryClient.class.getName());
   private final int numRetriesAllowed;
+  private final RttEstimator rttEstimator;
   private volatile int totalRetries = 0;
 
   public DefaultRetryClient(int numRetriesAllowed) {
+    this(numRetriesAllowed, null);
+  }
+
+  /**
+   * @param numRetriesAllowed the maximum number of retries per request
+   * @param rttEstimator the estimator to take retried Interest lifetimes from;
+   * may be null to retry with the original lifetime
+   */
+  public DefaultRetryClient(int numRetriesAllowed, RttEstimator rttEstimator) {
     this.numRetriesAllowed = numRetriesAllowed;
+    this.rttEstimator = rttEstimator;
   }
 
   /**
@@ -63,6 +78,10 @@ public class DefaultRetryClient implements RetryClient {
    * @throws IOException when the client cannot perform the necessary network IO
    */
   private synchronized void retryInterest(RetryContext context) throws IOException {
+    if (rttEstimator != null) {
+      rttEstimator.backoff(context.interest.getName());
+      context.interest.setInterestLifetimeMilliseconds(rttEstimator.getRetransmissionTimeout(context.interest.getName()));
+    }
     LOGGER.info("Retrying interest: " + context.interest.toUri());
     context.face.expressInterest(context.interest, context, context);
     totalRetries++;
@@ -0,0 +1,190 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.client.impl;
+
+import com.intel.jndn.utils.client.RttEstimator;
+import com.intel.jndn.utils.impl.ConcurrentBoundedLinkedMap;
+import net.named_data.jndn.Name;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Default implementation of {@link RttEstimator}; this follows the TCP
+ * retransmission timer computation of <a href="https://tools.ietf.org/html/rfc6298">RFC
+ * 6298</a> (SRTT, RTTVAR and an exponentially backed-off RTO).
+ * <p>
+ * Measurements are kept per prefix: a measurement for a name is recorded under
+ * the name's parent (e.g. the measurement for a segment is recorded under its
+ * content name) and lookups use the longest recorded prefix of the requested
+ * name. The number of prefixes tracked is bounded; the oldest prefix is
+ * replaced once the bound is reached.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class DefaultRttEstimator implements RttEstimator {
+
+  public static final double DEFAULT_INITIAL_RTO = SimpleClient.DEFAULT_TIMEOUT;
+  public static final double DEFAULT_MIN_RTO = 200;
+  public static final double DEFAULT_MAX_RTO = 60000;
+  public static final int DEFAULT_MAX_PREFIXES = 1024;
+  private static final Logger logger = Logger.getLogger(DefaultRttEstimator.class.getName());
+  private static final double ALPHA = 1.0 / 8;
+  private static final double BETA = 1.0 / 4;
+  private static final int K = 4;
+  private static final int BACKOFF_FACTOR = 2;
+  private final double initialRto;
+  private final double minRto;
+  private final double maxRto;
+  private final ConcurrentBoundedLinkedMap<Name, Stats> prefixes;
+
+  /**
+   * Build an estimator
+   *
+   * @param initialRto the retransmission timeout in milliseconds to use for
+   * names without measurements
+   * @param minRto the lower bound of the retransmission timeout in milliseconds
+   * @param maxRto the upper bound of the retransmission timeout in milliseconds
+   * @param maxPrefixes the maximum number of prefixes to track
+   */
+  public DefaultRttEstimator(double initialRto, double minRto, double maxRto, int maxPrefixes) {
+    if (minRto <= 0 || maxRto < minRto || initialRto < minRto || initialRto > maxRto) {
+      throw new IllegalArgumentException("Timeouts must satisfy 0 < min <= initial <= max");
+    }
+    this.initialRto = initialRto;
+    this.minRto = minRto;
+    this.maxRto = maxRto;
+    this.prefixes = new ConcurrentBoundedLinkedMap<>(maxPrefixes);
+  }
+
+  /**
+   * Build an estimator using default parameters
+   */
+  public DefaultRttEstimator() {
+    this(DEFAULT_INITIAL_RTO, DEFAULT_MIN_RTO, DEFAULT_MAX_RTO, DEFAULT_MAX_PREFIXES);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addMeasurement(Name name, double rttMilliseconds) {
+    Stats stats = getOrCreate(name.getPrefix(-1));
+    synchronized (stats) {
+      if (stats.srtt < 0) {
+        stats.srtt = rttMilliseconds;
+        stats.rttvar = rttMilliseconds / 2;
+      } else {
+        stats.rttvar = (1 - BETA) * stats.rttvar + BETA * Math.abs(stats.srtt - rttMilliseconds);
+        stats.srtt = (1 - ALPHA) * stats.srtt + ALPHA * rttMilliseconds;
+      }
+      stats.rto = bound(stats.srtt + K * stats.rttvar);
+    }
+    logger.log(Level.FINEST, "Measured {0}ms RTT for: {1}", new Object[]{rttMilliseconds, name.toUri()});
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void backoff(Name name) {
+    Stats stats = find(name);
+    if (stats == null) {
+      stats = getOrCreate(name.getPrefix(-1));
+    }
+    synchronized (stats) {
+      stats.rto = bound(stats.rto * BACKOFF_FACTOR);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getRetransmissionTimeout(Name name) {
+    Stats stats = find(name);
+    if (stats == null) {
+      return initialRto;
+    }
+    synchronized (stats) {
+      return stats.rto;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getSmoothedRtt(Name name) {
+    Stats stats = find(name);
+    if (stats == null) {
+      return -1;
+    }
+    synchronized (stats) {
+      return stats.srtt;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getRttVariation(Name name) {
+    Stats stats = find(name);
+    if (stats == null) {
+      return -1;
+    }
+    synchronized (stats) {
+      return stats.rttvar;
+    }
+  }
+
+  /**
+   * @param name the requested name
+   * @return the stats of the longest tracked prefix of the name or null if
+   * none are tracked
+   */
+  private Stats find(Name name) {
+    for (int i = name.size(); i >= 0; i--) {
+      Stats stats = prefixes.get(name.getPrefix(i));
+      if (stats != null) {
+        return stats;
+      }
+    }
+    return null;
+  }
+
+  private Stats getOrCreate(Name prefix) {
+    return prefixes.computeIfAbsent(prefix, p -> new Stats(initialRto));
+  }
+
+  private double bound(double rto) {
+    return Math.min(maxRto, Math.max(minRto, rto));
+  }
+
+  /**
+   * Helper class holding the estimates for a single prefix; guarded by its own
+   * monitor
+   */
+  private static class Stats {
+    double srtt = -1;
+    double rttvar = -1;
+    double rto;
+
+    Stats(double rto) {
+      this.rto = rto;
+    }
+  }
+}
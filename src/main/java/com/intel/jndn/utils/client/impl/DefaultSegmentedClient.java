@@ -62,7 +62,7 @@ public class DefaultSegmentedClient implements SegmentedClient {
     stream.observe(new SegmentationContext(stream, face));
 
     // request first packet
-    logger.info("Interest requested: " + interest.toUri());
+    logger.fine("Interest requested: " + interest.toUri());
     face.expressInterest(interest, stream, stream);
 
     return stream;
@@ -128,7 +128,7 @@ public class DefaultSegmentedClient implements SegmentedClient {
     private void requestRemainingSegments(Face face, Interest interest, SegmentedDataStream stream) throws IOException {
       long from = stream.current() + 1;
       long to = stream.end();
-      logger.info("Requesting remaining segments: from #" + from + " to #" + to);
+      logger.fine("Requesting remaining segments: from #" + from + " to #" + to);
 
       for (long segmentNumber = stream.current() + 1; segmentNumber <= stream.end(); segmentNumber++) {
         request(face, interest, stream, segmentNumber, marker);
@@ -143,7 +143,7 @@ public class DefaultSegmentedClient implements SegmentedClient {
     private void request(Face face, Interest interest, DataStream stream, long segmentNumber, byte marker) throws IOException {
       Interest copiedInterest = replaceFinalComponent(interest, segmentNumber, marker);
       face.expressInterest(copiedInterest, stream, stream);
-      logger.info("Interest sent: " + copiedInterest.toUri());
+      logger.fine("Interest sent: " + copiedInterest.toUri());
       setLastRequestedSegment(segmentNumber);
     }
   }
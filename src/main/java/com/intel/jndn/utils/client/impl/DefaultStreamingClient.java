@@ -14,31 +14,71 @@
 package com.intel.jndn.utils.client.impl;
 
 import com.intel.jndn.utils.client.DataStream;
+import com.intel.jndn.utils.client.OnComplete;
 import com.intel.jndn.utils.client.OnException;
 import com.intel.jndn.utils.client.SegmentationType;
 import com.intel.jndn.utils.client.SegmentedClient;
 import com.intel.jndn.utils.client.StreamingClient;
+import com.intel.jndn.utils.impl.SegmentationHelper;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
 import net.named_data.jndn.OnData;
+import net.named_data.jndn.OnTimeout;
+import net.named_data.jndn.util.Blob;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Default implementation of {@link StreamingClient}; uses a segmented client to
- * retrieve packets asynchronously and pipes them to a stream as they are
- * received.
+ * retrieve packets asynchronously and queues their content to a
+ * {@link SegmentQueueInputStream} as they are received. The stream applies
+ * backpressure: when its reader falls behind, segmented clients that support
+ * {@link com.intel.jndn.utils.client.FlowControl} (e.g. the default
+ * {@link PipelinedSegmentedClient}) stop sending Interests until the reader
+ * catches up; the face's event thread is never blocked.
+ * <p>
+ * Nothing retries on behalf of the streams this client requests, so a timeout
+ * passed on by the segmented client fails the stream and its reader receives an
+ * {@link IOException} instead of blocking on the missing segment.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
 public class DefaultStreamingClient implements StreamingClient {
+  public static final long DEFAULT_CAPACITY = 256 * SegmentationHelper.DEFAULT_SEGMENT_SIZE;
   private static final Logger LOGGER = Logger.getLogger(DefaultStreamingClient.class.getName());
+  private final SegmentedClient segmentedClient;
+  private final long capacity;
+
+  /**
+   * @param segmentedClient the {@link SegmentedClient} used to retrieve the
+   * packets to stream (e.g. a {@link PipelinedSegmentedClient})
+   * @param capacity the number of unread bytes at which to stop requesting
+   * packets
+   */
+  public DefaultStreamingClient(SegmentedClient segmentedClient, long capacity) {
+    this.segmentedClient = segmentedClient;
+    this.capacity = capacity;
+  }
+
+  /**
+   * @param segmentedClient the {@link SegmentedClient} used to retrieve the
+   * packets to stream (e.g. a {@link PipelinedSegmentedClient})
+   */
+  public DefaultStreamingClient(SegmentedClient segmentedClient) {
+    this(segmentedClient, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Build a streaming client using the {@link PipelinedSegmentedClient}
+   */
+  public DefaultStreamingClient() {
+    this(PipelinedSegmentedClient.getDefault());
+  }
 
   /**
    * {@inheritDoc}
@@ -59,58 +99,58 @@ public class DefaultStreamingClient implements StreamingClient {
    * @throws IOException if the stream setup fails
    */
   public InputStream getStreamAsync(Face face, Interest interest, SegmentationType partitionMarker, OnException onException) throws IOException {
-    SegmentedClient client = DefaultSegmentedClient.getDefault();
-    return getStreamAsync(client.getSegmentsAsync(face, interest), onException);
+    SegmentQueueInputStream in = new SegmentQueueInputStream(capacity);
+    DataStream stream = segmentedClient.getSegmentsAsync(face, interest, in);
+    connect(stream, in, onException);
+    stream.observe(new OnTimeout() {
+      @Override
+      public void onTimeout(Interest interest) {
+        stream.onException(new TimeoutException("Interest timed out: " + interest.toUri()));
+      }
+    });
+    return in;
   }
 
   /**
+   * Stream packets from an already-started request; note that the request is
+   * not slowed down if the stream's reader falls behind
+   *
    * @param onDataStream the data stream of incoming data packets
    * @param onException callback fired if a failure occurs during streaming
    * @return a stream of content bytes
    * @throws IOException if the stream setup fails
    */
   public InputStream getStreamAsync(DataStream onDataStream, OnException onException) throws IOException {
-    PipedInputStream in = new PipedInputStream();
-    PipedOutputStream out = new PipedOutputStream(in);
+    SegmentQueueInputStream in = new SegmentQueueInputStream(capacity);
+    connect(onDataStream, in, onException);
+    return in;
+  }
 
+  private void connect(DataStream onDataStream, SegmentQueueInputStream in, OnException onException) {
     onDataStream.observe(onException);
+    onDataStream.observe(new OnException() {
+      @Override
+      public void onException(Exception exception) {
+        in.fail(exception);
+      }
+    });
 
     onDataStream.observe(new OnData() {
       @Override
       public void onData(Interest interest, Data data) {
-        try {
-          out.write(data.getContent().getImmutableArray());
-        } catch (IOException ex) {
-          onDataStream.onException(ex);
+        Blob content = data.getContent();
+        if (!content.isNull()) {
+          in.offer(content.buf().duplicate());
         }
       }
     });
 
-    return new DoublePipeInputStream(in, out);
-  }
-
-  /**
-   * Helper for closing both ends of the pipe on close
-   */
-  private class DoublePipeInputStream extends InputStream {
-    private final PipedInputStream in;
-    private final PipedOutputStream out;
-
-    public DoublePipeInputStream(PipedInputStream in, PipedOutputStream out) {
-      this.in = in;
-      this.out = out;
-    }
-
-    @Override
-    public int read() throws IOException {
-      return in.read();
-    }
-
-    @Override
-    public void close() throws IOException {
-      in.close();
-      out.close();
-    }
+    onDataStream.observe(new OnComplete() {
+      @Override
+      public void onComplete() {
+        in.finish();
+      }
+    });
   }
 
   /**
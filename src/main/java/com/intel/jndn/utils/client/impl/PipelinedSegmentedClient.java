@@ -0,0 +1,500 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+package com.intel.jndn.utils.client.impl;
+
+import com.intel.jndn.utils.FaceEventLoop;
+import com.intel.jndn.utils.client.DataStream;
+import com.intel.jndn.utils.client.FlowControl;
+import com.intel.jndn.utils.client.RttEstimator;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
+import com.intel.jndn.utils.impl.SegmentationHelper;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.OnData;
+import net.named_data.jndn.OnTimeout;
+import net.named_data.jndn.encoding.EncodingException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Retrieve segments using a sliding window of outstanding Interests; the window
+ * is adjusted AIMD-style (additive increase, multiplicative decrease) from the
+ * received Data and timeouts, similar to TCP congestion control. Unlike
+ * {@link DefaultSegmentedClient}, this client sends ahead before the
+ * FinalBlockId is known and never bursts more Interests than the window allows.
+ * <p>
+ * A segment that times out is requested again, ahead of any new segment, up
+ * to a maximum number of consecutive losses; meanwhile the (decreased) window
+ * keeps being filled with new segments. Once a segment has been lost too many
+ * times, its last timeout is passed to the returned {@link DataStream}'s
+ * {@link OnTimeout} observers, as with {@link DefaultSegmentedClient}; e.g.
+ * {@link AdvancedClient} hands it to its retry client and
+ * {@link DefaultStreamingClient} fails the stream with a
+ * {@link TimeoutException}. No new segments are opened until the segment
+ * arrives on the stream. Timeouts for segments beyond the FinalBlockId, which
+ * are expected when sending ahead, are ignored.
+ * <p>
+ * If built with an {@link RttEstimator}, segment Interests use the estimator's
+ * retransmission timeout as their lifetime, every segment received measures a
+ * round trip, and each loss event the pipeline retransmits for backs the
+ * estimator off. A timeout passed to the stream is not backed off here, since
+ * the pipeline does not retransmit it; a retry client retrying it does.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class PipelinedSegmentedClient extends DefaultSegmentedClient {
+
+  public static final int DEFAULT_INITIAL_WINDOW = 2;
+  public static final int DEFAULT_MAX_WINDOW = 64;
+  public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+  public static final int DEFAULT_MAX_RETRIES = 3;
+  private static final Logger logger = Logger.getLogger(PipelinedSegmentedClient.class.getName());
+  private static final int MIN_WINDOW = 1;
+  private static PipelinedSegmentedClient defaultInstance;
+  private final int initialWindow;
+  private final int maxWindow;
+  private final double decreaseFactor;
+  private final RttEstimator rttEstimator;
+  private final int maxRetries;
+  private final byte marker = 0x00;
+
+  /**
+   * Build a pipelined client
+   *
+   * @param initialWindow the number of Interests to have outstanding when a
+   * request starts
+   * @param maxWindow the maximum number of outstanding Interests; the window
+   * will not grow beyond this
+   * @param decreaseFactor the factor by which the window is multiplied on
+   * timeout; must be between 0 and 1
+   */
+  public PipelinedSegmentedClient(int initialWindow, int maxWindow, double decreaseFactor) {
+    this(initialWindow, maxWindow, decreaseFactor, null);
+  }
+
+  /**
+   * Build a pipelined client that adapts segment Interest lifetimes to the
+   * measured round-trip times
+   *
+   * @param initialWindow the number of Interests to have outstanding when a
+   * request starts
+   * @param maxWindow the maximum number of outstanding Interests; the window
+   * will not grow beyond this
+   * @param decreaseFactor the factor by which the window is multiplied on
+   * timeout; must be between 0 and 1
+   * @param rttEstimator the estimator to measure segments with; may be null to
+   * keep the lifetime of the initial Interest
+   */
+  public PipelinedSegmentedClient(int initialWindow, int maxWindow, double decreaseFactor, RttEstimator rttEstimator) {
+    this(initialWindow, maxWindow, decreaseFactor, rttEstimator, DEFAULT_MAX_RETRIES);
+  }
+
+  /**
+   * Build a pipelined client
+   *
+   * @param initialWindow the number of Interests to have outstanding when a
+   * request starts
+   * @param maxWindow the maximum number of outstanding Interests; the window
+   * will not grow beyond this
+   * @param decreaseFactor the factor by which the window is multiplied on
+   * timeout; must be between 0 and 1
+   * @param rttEstimator the estimator to measure segments with; may be null to
+   * keep the lifetime of the initial Interest
+   * @param maxRetries the number of times a timed-out segment is requested
+   * again before the request fails
+   */
+  public PipelinedSegmentedClient(int initialWindow, int maxWindow, double decreaseFactor, RttEstimator rttEstimator, int maxRetries) {
+    if (initialWindow < MIN_WINDOW || maxWindow < initialWindow) {
+      throw new IllegalArgumentException("Window sizes must satisfy 1 <= initial <= max");
+    }
+    if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+      throw new IllegalArgumentException("The decrease factor must be between 0 and 1");
+    }
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("The number of retries must not be negative");
+    }
+    this.initialWindow = initialWindow;
+    this.maxWindow = maxWindow;
+    this.decreaseFactor = decreaseFactor;
+    this.rttEstimator = rttEstimator;
+    this.maxRetries = maxRetries;
+  }
+
+  /**
+   * Build a pipelined client using default parameters
+   */
+  public PipelinedSegmentedClient() {
+    this(DEFAULT_INITIAL_WINDOW, DEFAULT_MAX_WINDOW, DEFAULT_DECREASE_FACTOR);
+  }
+
+  /**
+   * Singleton access for simpler client use
+   *
+   * @return a default client
+   */
+  public static PipelinedSegmentedClient getDefault() {
+    if (defaultInstance == null) {
+      defaultInstance = new PipelinedSegmentedClient();
+    }
+    return defaultInstance;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DataStream getSegmentsAsync(Face face, Interest interest) throws IOException {
+    return getSegmentsAsync(face, interest, null);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * While the flow control refuses requests, the window is not refilled; when
+   * the consumer resumes (usually on its own thread), the refill is handed to
+   * the thread processing the face's events: it is submitted to the
+   * {@link FaceEventLoop} driving the face if there is one (see
+   * {@link DefaultFaceEventLoop#driving(Face)}), or else scheduled with
+   * {@link Face#callLater(double, Runnable)} while holding the face's monitor,
+   * which the threads processing the face's events also hold (e.g.
+   * {@link SimpleClient#getSync(Face, Interest)}).
+   */
+  @Override
+  public DataStream getSegmentsAsync(Face face, Interest interest, FlowControl flowControl) throws IOException {
+    SegmentedDataStream stream = new SegmentedDataStream();
+    Pipeline pipeline = new Pipeline(face, stream, flowControl);
+    pipeline.start(interest);
+    return stream;
+  }
+
+  /**
+   * Helper class tracking the window and outstanding Interests for a single
+   * request; all callbacks for the request's Interests pass through here
+   * before reaching the stream. Data retrieved by others on the stream's behalf
+   * (e.g. by a retry client) is observed on the stream so that the pipeline
+   * keeps advancing.
+   */
+  private class Pipeline implements OnData, OnTimeout {
+
+    private final Face face;
+    private final SegmentedDataStream stream;
+    private final FlowControl flowControl;
+    private final Map<Long, Request> outstanding = new HashMap<>();
+    private final Map<Long, Integer> losses = new HashMap<>(); // consecutive timeouts of each missing segment
+    private final Set<Long> abandoned = new HashSet<>(); // segments passed to the stream's timeout observers
+    private Interest first;
+    private Interest template;
+    private long nextSegment;
+    private long skipSegment = -1;
+    private double window = initialWindow;
+    private double threshold = maxWindow;
+    private long recoveryPoint = -1;
+
+    Pipeline(Face face, SegmentedDataStream stream, FlowControl flowControl) {
+      this.face = face;
+      this.stream = stream;
+      this.flowControl = flowControl;
+      stream.observe((OnData) (i, d) -> advance(d));
+      if (flowControl != null) {
+        flowControl.onResumed(this::scheduleResume);
+      }
+    }
+
+    /**
+     * Send the first Interest; if it already names a segment, the segment
+     * naming is known and the window can be filled immediately
+     */
+    synchronized void start(Interest interest) throws IOException {
+      first = interest;
+      if (SegmentationHelper.isSegmented(interest.getName(), marker)) {
+        template = interest;
+        nextSegment = interest.getName().get(-1).toNumber(); // the segment marker is a leading zero byte
+        fill();
+      } else {
+        logger.log(Level.FINER, "Interest requested: {0}", interest.toUri());
+        request(-1);
+      }
+    }
+
+    @Override
+    public void onData(Interest interest, Data data) {
+      synchronized (this) {
+        long segment = keyOf(interest);
+        measure(interest, outstanding.remove(segment));
+        losses.remove(segment);
+        increaseWindow();
+      }
+
+      stream.onData(interest, data);
+      if (isHeldBack(data)) {
+        advance(data); // in-order segments reach advance through the stream's observers
+      }
+    }
+
+    /**
+     * @return true if the stream holds the segment back from its observers
+     * until the segments before it arrive
+     */
+    private boolean isHeldBack(Data data) {
+      try {
+        return SegmentationHelper.isSegmented(data.getName(), marker) && parseSegment(data.getName()) > stream.current();
+      } catch (EncodingException e) {
+        return false;
+      }
+    }
+
+    /**
+     * Learn the segment naming from the first segmented packet, stop sending
+     * past the end once it is known and refill the window
+     */
+    private void advance(Data data) {
+      try {
+        synchronized (this) {
+          if (!SegmentationHelper.isSegmented(data.getName(), marker)) {
+            return;
+          }
+
+          if (template == null) {
+            template = new Interest(first).setName(data.getName());
+            skipSegment = parseSegment(data.getName());
+            nextSegment = 0;
+            abandoned.remove(-1L);
+          }
+          losses.remove(parseSegment(data.getName())); // e.g. retrieved on the stream's behalf
+          abandoned.remove(parseSegment(data.getName()));
+
+          if (stream.hasEnd()) {
+            cancelBeyond(stream.end());
+          }
+          fill();
+        }
+      } catch (EncodingException | IOException e) {
+        stream.onException(e);
+      }
+    }
+
+    /**
+     * Request the lost segment again, or pass the timeout to the stream once
+     * the segment has been lost too many times in a row
+     */
+    @Override
+    public void onTimeout(Interest interest) {
+      IOException failure;
+      synchronized (this) {
+        long segment = keyOf(interest);
+        outstanding.remove(segment);
+        if (stream.isComplete() || (template != null && (segment <= stream.current() || (stream.hasEnd() && segment > stream.end())))) {
+          logger.log(Level.FINEST, "Ignoring timeout for a received or nonexistent segment: {0}", interest.toUri());
+          return;
+        }
+
+        boolean lossEvent = template != null && decreaseWindow(segment);
+
+        int lost = losses.merge(segment, 1, Integer::sum);
+        if (lost > maxRetries) {
+          // whoever retries the segment after the stream's observers see the timeout backs the estimator off
+          logger.log(Level.FINER, "Passing timeout to the stream after {0} retries: {1}", new Object[]{maxRetries, interest.toUri()});
+          losses.remove(segment);
+          abandoned.add(segment);
+          failure = null;
+        } else {
+          logger.log(Level.FINER, "Retrying interest after {0} timeouts: {1}", new Object[]{lost, interest.toUri()});
+          if (lossEvent && rttEstimator != null) {
+            rttEstimator.backoff(template.getName());
+          }
+          try {
+            request(segment);
+            if (template != null) {
+              fill();
+            }
+            return;
+          } catch (IOException e) {
+            failure = e;
+          }
+        }
+      }
+
+      if (failure != null) {
+        stream.onException(failure);
+      } else {
+        stream.onTimeout(interest);
+      }
+    }
+
+    /**
+     * Hand the refill to the thread processing the face's events; jndn's
+     * {@link Face} is not thread-safe and this runs on the consumer's thread
+     */
+    private void scheduleResume() {
+      FaceEventLoop loop = DefaultFaceEventLoop.driving(face);
+      if (loop != null) {
+        try {
+          loop.execute(this::resume);
+          return;
+        } catch (RejectedExecutionException e) {
+          logger.log(Level.FINER, "The event loop driving the face stopped; scheduling the refill on the face.", e);
+        }
+      }
+      synchronized (face) {
+        face.callLater(0, this::resume);
+      }
+    }
+
+    /**
+     * Refill the window after the consumer stopped and resumed requests
+     */
+    private void resume() {
+      try {
+        synchronized (this) {
+          if (template != null) {
+            fill();
+          }
+        }
+      } catch (IOException e) {
+        stream.onException(e);
+      }
+    }
+
+    /**
+     * Slow-start until the threshold is reached, then grow the window by
+     * roughly one segment per window of received packets
+     */
+    private void increaseWindow() {
+      if (window < threshold) {
+        window += 1;
+      } else {
+        window += 1 / window;
+      }
+      window = Math.min(window, maxWindow);
+    }
+
+    /**
+     * Shrink the window once per loss event; timeouts for segments sent before
+     * the last decrease belong to the same event and are not counted twice
+     *
+     * @return true if the timeout started a new loss event
+     */
+    private boolean decreaseWindow(long segment) {
+      if (segment <= recoveryPoint) {
+        return false;
+      }
+      threshold = Math.max(MIN_WINDOW, window * decreaseFactor);
+      window = threshold;
+      recoveryPoint = nextSegment - 1;
+      logger.log(Level.FINER, "Decreased window to {0} after timeout on segment #{1}", new Object[]{window, segment});
+      return true;
+    }
+
+    /**
+     * Send Interests for the following segments until the window is full, the
+     * final segment has been requested or the consumer stops accepting data;
+     * retransmissions are sent before this and count towards the window, and
+     * nothing new is requested while an abandoned segment is missing
+     */
+    private void fill() throws IOException {
+      while (outstanding.size() < (int) window && abandoned.isEmpty() && !stream.isComplete()
+          && (!stream.hasEnd() || nextSegment <= stream.end()) && (flowControl == null || flowControl.canRequest())) {
+        long segment = nextSegment++;
+        if (segment != skipSegment) {
+          request(segment);
+        }
+      }
+    }
+
+    /**
+     * @param segment the segment to request or -1 for the initial, unsegmented
+     * Interest
+     */
+    private void request(long segment) throws IOException {
+      Interest copied = segment < 0 ? first : replaceFinalComponent(template, segment, marker);
+      if (rttEstimator != null && segment >= 0) {
+        copied.setInterestLifetimeMilliseconds(rttEstimator.getRetransmissionTimeout(copied.getName()));
+      }
+      long pendingInterestId = face.expressInterest(copied, this, this);
+      outstanding.put(segment, new Request(pendingInterestId));
+      logger.log(Level.FINER, "Interest sent: {0}", copied.toUri());
+    }
+
+    /**
+     * Remove pending Interests sent ahead for segments that do not exist
+     */
+    private void cancelBeyond(long end) {
+      List<Long> cancelled = new ArrayList<>();
+      for (Iterator<Map.Entry<Long, Request>> it = outstanding.entrySet().iterator(); it.hasNext(); ) {
+        Map.Entry<Long, Request> entry = it.next();
+        if (entry.getKey() > end) {
+          cancelled.add(entry.getValue().pendingInterestId);
+          it.remove();
+        }
+      }
+      for (long pendingInterestId : cancelled) {
+        face.removePendingInterest(pendingInterestId);
+      }
+    }
+
+    /**
+     * Record the round trip of a request sent by this pipeline; requests
+     * retransmitted elsewhere (e.g. by a retry client) are never measured
+     */
+    private void measure(Interest interest, Request request) {
+      if (rttEstimator != null && request != null) {
+        rttEstimator.addMeasurement(interest.getName(), (System.nanoTime() - request.sentAt) / 1000000.0);
+      }
+    }
+
+    /**
+     * @return the segment requested by one of this pipeline's Interests or -1
+     * for the initial, unsegmented Interest
+     */
+    private long keyOf(Interest interest) {
+      if (template == null || !SegmentationHelper.isSegmented(interest.getName(), marker)) {
+        return -1;
+      }
+      try {
+        return parseSegment(interest.getName());
+      } catch (EncodingException e) {
+        return -1;
+      }
+    }
+
+    private long parseSegment(Name name) throws EncodingException {
+      return SegmentationHelper.parseSegment(name, marker);
+    }
+  }
+
+  /**
+   * Helper class for an outstanding Interest
+   */
+  private static class Request {
+    final long pendingInterestId;
+    final long sentAt = System.nanoTime();
+
+    Request(long pendingInterestId) {
+      this.pendingInterestId = pendingInterestId;
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.client.impl;
+
+import com.intel.jndn.utils.client.FlowControl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stream the content of segments as they are received: the producer (e.g. the
+ * thread processing face events) enqueues segment buffers without copying or
+ * blocking and a single reader drains them with bulk reads. Instead of blocking
+ * the producer when the reader falls behind, the stream acts as a
+ * {@link FlowControl}: once the queued bytes reach the capacity it asks the
+ * segmented client to stop sending Interests, and resumes it once the reader
+ * has drained half of the capacity.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class SegmentQueueInputStream extends InputStream implements FlowControl {
+
+  private final long capacity;
+  private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicLong queuedBytes = new AtomicLong();
+  private final List<Runnable> resumeCallbacks = new CopyOnWriteArrayList<>();
+  private final Object signal = new Object();
+  private volatile boolean paused = false;
+  private volatile boolean finished = false;
+  private volatile boolean closed = false;
+  private volatile IOException failure;
+  private ByteBuffer current;
+
+  /**
+   * @param capacity the number of unread bytes at which to stop requesting
+   * more data
+   */
+  SegmentQueueInputStream(long capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * Enqueue the content of a segment; this never blocks
+   *
+   * @param content the bytes to enqueue, from position to limit; the buffer
+   * must not be modified afterwards
+   */
+  void offer(ByteBuffer content) {
+    if (closed || !content.hasRemaining()) {
+      return;
+    }
+    queuedBytes.addAndGet(content.remaining());
+    queue.add(content);
+    wake();
+  }
+
+  /**
+   * Mark the end of the stream; readers see end-of-stream once the queue is
+   * drained
+   */
+  void finish() {
+    finished = true;
+    wake();
+  }
+
+  /**
+   * Fail the stream; readers see the failure once the queue is drained
+   *
+   * @param exception the cause of the failure
+   */
+  void fail(Exception exception) {
+    failure = exception instanceof IOException ? (IOException) exception : new IOException("Streaming failed.", exception);
+    wake();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean canRequest() {
+    if (closed) {
+      return false;
+    }
+    if (queuedBytes.get() < capacity) {
+      return true;
+    }
+    paused = true;
+    return queuedBytes.get() < capacity; // the reader may have drained the queue before seeing the pause
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onResumed(Runnable callback) {
+    resumeCallbacks.add(callback);
+  }
+
+  @Override
+  public int read() throws IOException {
+    ByteBuffer buffer = next();
+    if (buffer == null) {
+      return -1;
+    }
+    int b = buffer.get() & 0xFF;
+    consumed(1);
+    return b;
+  }
+
+  /**
+   * Read as many bytes as are available without blocking; blocks only if no
+   * bytes are available
+   */
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+
+    ByteBuffer buffer = next();
+    if (buffer == null) {
+      return -1;
+    }
+
+    int read = 0;
+    while (buffer != null && read < len) {
+      int n = Math.min(len - read, buffer.remaining());
+      buffer.get(b, off + read, n);
+      read += n;
+      buffer = buffer.hasRemaining() ? buffer : poll();
+    }
+    consumed(read);
+    return read;
+  }
+
+  @Override
+  public int available() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed.");
+    }
+    return (int) Math.min(Integer.MAX_VALUE, queuedBytes.get());
+  }
+
+  /**
+   * Write all remaining bytes to the output stream, blocking until the end of
+   * the stream; heap buffers are written without an intermediate copy
+   *
+   * @param out the stream to write to
+   * @return the number of bytes transferred
+   * @throws IOException if either stream fails
+   */
+  public long transferTo(OutputStream out) throws IOException {
+    long transferred = 0;
+    byte[] chunk = null;
+    ByteBuffer buffer;
+    while ((buffer = next()) != null) {
+      int n = buffer.remaining();
+      if (buffer.hasArray()) {
+        out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), n);
+        buffer.position(buffer.limit());
+      } else {
+        if (chunk == null) {
+          chunk = new byte[8192];
+        }
+        n = Math.min(n, chunk.length);
+        buffer.get(chunk, 0, n);
+        out.write(chunk, 0, n);
+      }
+      consumed(n);
+      transferred += n;
+    }
+    return transferred;
+  }
+
+  /**
+   * Write all remaining bytes to the channel, blocking until the end of the
+   * stream; no bytes are copied onto the heap
+   *
+   * @param channel the channel to write to
+   * @return the number of bytes transferred
+   * @throws IOException if the stream or channel fails
+   */
+  public long transferTo(WritableByteChannel channel) throws IOException {
+    long transferred = 0;
+    ByteBuffer buffer;
+    while ((buffer = next()) != null) {
+      int n = channel.write(buffer);
+      consumed(n);
+      transferred += n;
+    }
+    return transferred;
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    queue.clear();
+    current = null;
+    wake();
+  }
+
+  /**
+   * @return the buffer to read from, blocking until one is available, or null
+   * at the end of the stream
+   * @throws IOException if the stream failed or was closed
+   */
+  private ByteBuffer next() throws IOException {
+    while (true) {
+      if (closed) {
+        throw new IOException("Stream closed.");
+      }
+      if (current != null && current.hasRemaining()) {
+        return current;
+      }
+      if (poll() != null) {
+        continue;
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      if (finished) {
+        return poll(); // an offer may have raced with the end of the stream
+      }
+      await();
+    }
+  }
+
+  /**
+   * @return the next non-empty queued buffer, now current, or null if the
+   * queue is empty
+   */
+  private ByteBuffer poll() {
+    current = queue.poll();
+    return current;
+  }
+
+  private void await() throws IOException {
+    synchronized (signal) {
+      while (queue.isEmpty() && !finished && failure == null && !closed) {
+        try {
+          signal.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for data.", e);
+        }
+      }
+    }
+  }
+
+  private void wake() {
+    synchronized (signal) {
+      signal.notifyAll();
+    }
+  }
+
+  /**
+   * Account for bytes read and resume requests once half the capacity is free
+   */
+  private void consumed(int n) {
+    long remaining = queuedBytes.addAndGet(-n);
+    if (paused && remaining <= capacity / 2) {
+      paused = false;
+      for (Runnable callback : resumeCallbacks) {
+        callback.run();
+      }
+    }
+  }
+}
@@ -24,11 +24,14 @@ import net.named_data.jndn.OnData;
 import net.named_data.jndn.OnTimeout;
 import net.named_data.jndn.encoding.EncodingException;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -50,7 +53,7 @@ public class SegmentedDataStream implements DataStream {
   private final byte PARTITION_MARKER = 0x00;
   private volatile long current = -1;
   private volatile long end = Long.MAX_VALUE;
-  private final Map<Long, Data> packets = new LinkedHashMap<>();
+  private final Map<Long, Data> packets = new TreeMap<>(); // ordered by segment number for assembly
   private final List<Object> observers = new ArrayList<>();
   private Exception exception;
 
@@ -89,6 +92,38 @@ public class SegmentedDataStream implements DataStream {
     return new DataAssembler(list(), PARTITION_MARKER).assemble();
   }
 
+  /**
+   * @return a composite view of the content of the packets received so far,
+   * one read-only buffer per packet in segment order; unlike
+   * {@link #assemble()}, no bytes are copied
+   * @throws StreamException if the stream completed exceptionally
+   */
+  public ByteBuffer[] contents() throws StreamException {
+    if (isCompletedExceptionally()) {
+      throw new StreamException(exception);
+    }
+
+    return new DataAssembler(list(), PARTITION_MARKER).contents();
+  }
+
+  /**
+   * Write the content of the packets received so far, in segment order, to a
+   * channel (e.g. a file) with gathering writes instead of assembling it in
+   * memory first
+   *
+   * @param channel the channel to write to, in blocking mode
+   * @return the number of bytes written
+   * @throws IOException if the channel fails or accepts no bytes, or the
+   * stream completed exceptionally
+   */
+  public long writeTo(GatheringByteChannel channel) throws IOException {
+    if (isCompletedExceptionally()) {
+      throw new IOException("Stream completed exceptionally.", new StreamException(exception));
+    }
+
+    return new DataAssembler(list(), PARTITION_MARKER).writeTo(channel);
+  }
+
   @Override
   public void observe(OnData onData) {
     observers.add(onData);
@@ -111,7 +146,7 @@ public class SegmentedDataStream implements DataStream {
 
   @Override
   public synchronized void onData(Interest interest, Data data) {
-    logger.info("Data received: " + data.getName().toUri());
+    logger.fine("Data received: " + data.getName().toUri());
     long id;
 
     // no segment component
@@ -13,18 +13,34 @@
  */
 package com.intel.jndn.utils.client.impl;
 
+import com.intel.jndn.utils.Cancellation;
 import com.intel.jndn.utils.Client;
+import com.intel.jndn.utils.FaceEventLoop;
+import com.intel.jndn.utils.client.RttEstimator;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
+import com.intel.jndn.utils.impl.FaceSelector;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
+import net.named_data.jndn.KeyLocator;
 import net.named_data.jndn.Name;
 import net.named_data.jndn.OnData;
 import net.named_data.jndn.OnTimeout;
 import net.named_data.jndn.encoding.EncodingException;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -38,23 +54,109 @@ public class SimpleClient implements Client {
 
   public static final long DEFAULT_SLEEP_TIME = 20;
   public static final long DEFAULT_TIMEOUT = 2000;
+  public static final int DEFAULT_MAX_OUTSTANDING = 64;
   private static final Logger logger = Logger.getLogger(SimpleClient.class.getName());
+  private static final long LOOP_CHECK_INTERVAL = 1000;
   private static SimpleClient defaultInstance;
   private final long sleepTime;
   private final long interestLifetime;
+  private final RttEstimator rttEstimator;
+  private final boolean backoff;
+  private final Map<InFlightKey, CompletableFuture<Data>> inFlight;
 
   /**
    * Build a simple client
    *
-   * @param sleepTime for synchronous processing, the time to sleep the thread
-   * between {@link Face#processEvents()}
+   * @param sleepTime for synchronous processing, the maximum time to block the
+   * thread between {@link Face#processEvents()} while no bytes arrive
    * @param interestLifetime the {@link Interest} lifetime for default
    * Interests; see
    * {@link #getAsync(net.named_data.jndn.Face, net.named_data.jndn.Name)}
    */
   public SimpleClient(long sleepTime, long interestLifetime) {
+    this(sleepTime, interestLifetime, false);
+  }
+
+  /**
+   * Build a simple client that optionally coalesces concurrent requests: while
+   * an Interest is in flight on a face, requests for an Interest with the same
+   * name and selectors do not send a new Interest but are completed from the
+   * response to the first request; each requester still receives its own
+   * future, so completing or cancelling it does not affect the others
+   *
+   * @param sleepTime for synchronous processing, the maximum time to block the
+   * thread between {@link Face#processEvents()} while no bytes arrive
+   * @param interestLifetime the {@link Interest} lifetime for default
+   * Interests; see
+   * {@link #getAsync(net.named_data.jndn.Face, net.named_data.jndn.Name)}
+   * @param coalesce true to share in-flight requests
+   */
+  public SimpleClient(long sleepTime, long interestLifetime, boolean coalesce) {
+    this(sleepTime, interestLifetime, null, coalesce, false);
+  }
+
+  /**
+   * Build a simple client that adapts default {@link Interest} lifetimes to
+   * the measured round-trip times. The client owns the estimator: its timeouts
+   * back the estimator off (see {@link RttEstimator#backoff(Name)}), so that
+   * the next request waits longer; to retry timed-out requests with a
+   * {@link DefaultRetryClient} or {@link BackoffRetryClient} sharing the
+   * estimator, which backs it off itself, use
+   * {@link #SimpleClient(long, RttEstimator, boolean, boolean)} instead.
+   *
+   * @param sleepTime for synchronous processing, the maximum time to block the
+   * thread between {@link Face#processEvents()} while no bytes arrive
+   * @param rttEstimator the estimator to measure responses with and to take
+   * default Interest lifetimes from; see
+   * {@link #getAsync(net.named_data.jndn.Face, net.named_data.jndn.Name)}
+   */
+  public SimpleClient(long sleepTime, RttEstimator rttEstimator) {
+    this(sleepTime, rttEstimator, false);
+  }
+
+  /**
+   * Build a simple client that adapts default {@link Interest} lifetimes to
+   * the measured round-trip times and optionally coalesces concurrent requests
+   * (see {@link #SimpleClient(long, long, boolean)}); a coalesced request is
+   * measured once, by the request that sent the Interest
+   *
+   * @param sleepTime for synchronous processing, the maximum time to block the
+   * thread between {@link Face#processEvents()} while no bytes arrive
+   * @param rttEstimator the estimator to measure responses with and to take
+   * default Interest lifetimes from; see
+   * {@link #getAsync(net.named_data.jndn.Face, net.named_data.jndn.Name)}
+   * @param coalesce true to share in-flight requests
+   */
+  public SimpleClient(long sleepTime, RttEstimator rttEstimator, boolean coalesce) {
+    this(sleepTime, rttEstimator, coalesce, true);
+  }
+
+  /**
+   * Build a simple client that adapts default {@link Interest} lifetimes to
+   * the measured round-trip times (see
+   * {@link #SimpleClient(long, RttEstimator, boolean)}); per Karn's algorithm,
+   * only the component retransmitting a request backs the estimator off, so
+   * pass false for {@code backoff} if another component (e.g. a retry client
+   * sharing the estimator) retries this client's timed-out requests
+   *
+   * @param sleepTime for synchronous processing, the maximum time to block the
+   * thread between {@link Face#processEvents()} while no bytes arrive
+   * @param rttEstimator the estimator to measure responses with and to take
+   * default Interest lifetimes from; see
+   * {@link #getAsync(net.named_data.jndn.Face, net.named_data.jndn.Name)}
+   * @param coalesce true to share in-flight requests
+   * @param backoff true to back the estimator off when a request times out
+   */
+  public SimpleClient(long sleepTime, RttEstimator rttEstimator, boolean coalesce, boolean backoff) {
+    this(sleepTime, DEFAULT_TIMEOUT, rttEstimator, coalesce, backoff);
+  }
+
+  private SimpleClient(long sleepTime, long interestLifetime, RttEstimator rttEstimator, boolean coalesce, boolean backoff) {
     this.sleepTime = sleepTime;
     this.interestLifetime = interestLifetime;
+    this.rttEstimator = rttEstimator;
+    this.backoff = rttEstimator != null && backoff;
+    this.inFlight = coalesce ? new ConcurrentHashMap<>() : null;
   }
 
   /**
@@ -78,10 +180,36 @@ public class SimpleClient implements Client {
 
   /**
    * {@inheritDoc}
+   * <p>
+   * If the client coalesces requests (see
+   * {@link #SimpleClient(long, long, boolean)} and
+   * {@link #SimpleClient(long, RttEstimator, boolean)}) and an equivalent
+   * Interest is already in flight on the face, the returned future completes
+   * with the response to that request.
    */
   @Override
   public CompletableFuture<Data> getAsync(Face face, Interest interest) {
-    final CompletableFuture futureData = new CompletableFuture<>();
+    if (inFlight == null) {
+      return send(face, interest, new CompletableFuture<>());
+    }
+
+    // the shared future is never handed out; each requester gets a dependent one it may complete or cancel freely
+    InFlightKey key = new InFlightKey(face, interest);
+    CompletableFuture<Data> futureData = new CompletableFuture<>();
+    CompletableFuture<Data> existing = inFlight.putIfAbsent(key, futureData);
+    if (existing != null) {
+      logger.log(Level.FINER, "Joining in-flight request for: " + interest.getName().toUri());
+      return existing.thenApply(data -> data);
+    }
+    futureData.whenComplete((data, failure) -> inFlight.remove(key, futureData));
+    return send(face, interest, futureData).thenApply(data -> data);
+  }
+
+  /**
+   * Send the Interest, completing the future with its response
+   */
+  private CompletableFuture<Data> send(Face face, Interest interest, CompletableFuture<Data> futureData) {
+    final long sentAt = System.nanoTime();
 
     // send interest
     logger.log(Level.FINER, "Sending interest for: " + interest.getName().toUri());
@@ -90,11 +218,17 @@ public class SimpleClient implements Client {
         @Override
         public void onData(Interest interest, Data data) {
           logger.log(Level.FINER, "Retrieved data: " + data.getName().toUri());
+          if (rttEstimator != null) {
+            rttEstimator.addMeasurement(interest.getName(), (System.nanoTime() - sentAt) / 1000000.0);
+          }
           futureData.complete(data);
         }
       }, new OnTimeout() {
         @Override
         public void onTimeout(Interest interest) {
+          if (backoff) {
+            rttEstimator.backoff(interest.getName());
+          }
           String message = interest.getInterestLifetimeMilliseconds() + "ms timeout exceeded";
           futureData.completeExceptionally(new TimeoutException(message));
         }
@@ -117,28 +251,135 @@ public class SimpleClient implements Client {
 
   /**
    * {@inheritDoc}
+   * <p>
+   * At most {@link #DEFAULT_MAX_OUTSTANDING} Interests are outstanding at a
+   * time and the remaining Interests are sent as responses arrive; the future
+   * completes exceptionally (and no further Interests are sent) as soon as any
+   * request fails. See {@link #getAllAsync(Face, Collection, int)}.
+   */
+  @Override
+  public CompletableFuture<Map<Name, Data>> getAllAsync(Face face, Collection<Interest> interests) {
+    return getAllAsync(face, interests, DEFAULT_MAX_OUTSTANDING);
+  }
+
+  /**
+   * Asynchronously request the Data for many Interests, keeping at most
+   * {@code maxOutstanding} of them pending on the face at a time. All requests
+   * of a batch share the same callbacks, so the per-request cost is little
+   * more than the Interest itself.
+   *
+   * @param face the {@link Face} on which to make the requests; call
+   * {@link Face#processEvents()} separately to complete the requests
+   * @param interests the {@link Interest}s to send; only the first Interest
+   * for each name is sent
+   * @param maxOutstanding the maximum number of Interests pending at a time
+   * @return a future map of each distinct Interest name to its {@link Data}
+   * packet, in request order
+   */
+  public CompletableFuture<Map<Name, Data>> getAllAsync(Face face, Collection<Interest> interests, int maxOutstanding) {
+    if (maxOutstanding < 1) {
+      throw new IllegalArgumentException("At least one Interest must be allowed to be outstanding");
+    }
+    Batch batch = new Batch(face, interests, maxOutstanding);
+    batch.sendMore();
+    return batch.future;
+  }
+
+  /**
+   * Send one Interest of a batch; sub-classes that retrieve data differently
+   * (e.g. segmented data) report the outcome to the batch themselves
+   *
+   * @param face the face to send on
+   * @param interest the Interest to send
+   * @param batch the batch to report the response or failure to
+   * @return a token for abandoning the request if the batch fails
+   * @throws IOException if the Interest cannot be sent
+   */
+  Cancellation send(Face face, Interest interest, Batch batch) throws IOException {
+    long pendingInterestId = face.expressInterest(interest, batch, batch);
+    return () -> face.removePendingInterest(pendingInterestId);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If a {@link FaceEventLoop} is driving the face (see
+   * {@link DefaultFaceEventLoop#driving(Face)}), the request is submitted to
+   * the loop and the calling thread simply parks until the request completes
+   * (however many Interests it takes, e.g. for segments or retries) or the
+   * loop stops; otherwise the calling thread processes the face's events
+   * itself, waiting between iterations on the selector shared by all callers
+   * on the face (see {@link FaceSelector#shared(Face)}).
    */
   @Override
   public Data getSync(Face face, Interest interest) throws IOException {
+    FaceEventLoop loop = DefaultFaceEventLoop.driving(face);
+    if (loop != null && !loop.inEventLoop()) {
+      return getSync(loop, interest);
+    }
+
     CompletableFuture<Data> future = getAsync(face, interest);
+    FaceSelector selector = FaceSelector.shared(face);
 
     try {
-      // process events until complete
+      // process events until complete, blocking for the sleep time (so timeouts still fire) or, with channel selection, until bytes arrive
       while (!future.isDone()) {
         synchronized (face) {
           face.processEvents();
         }
 
-        if (sleepTime > 0) {
-          try {
-            Thread.sleep(sleepTime);
-          } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        if (!future.isDone() && sleepTime > 0) {
+          // one caller at a time waits on the face's selector; the others wait for their own request to complete
+          if (!selector.tryAwait(sleepTime)) {
+            awaitQuietly(future, sleepTime);
+          }
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
           }
         }
       }
       return future.get();
     } catch (InterruptedException | ExecutionException | EncodingException e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      logger.log(Level.FINE, "Failed to retrieve data.", e);
+      throw new IOException("Failed to retrieve data.", e);
+    }
+  }
+
+  /**
+   * Wait for the future to complete, at most for the given time; its outcome is read by the caller
+   */
+  private static void awaitQuietly(CompletableFuture<Data> future, long timeoutMs) throws InterruptedException {
+    try {
+      future.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      // the caller checks the future again
+    }
+  }
+
+  /**
+   * Send the Interest from the loop thread and park until the request
+   * completes; the request's own timeouts bound the wait, but since a stopped
+   * loop never completes it, the loop is checked periodically
+   */
+  private Data getSync(FaceEventLoop loop, Interest interest) throws IOException {
+    CompletableFuture<Data> future = loop.submit(() -> getAsync(loop.getFace(), interest)).thenCompose(f -> f);
+    try {
+      while (true) {
+        try {
+          return future.get(LOOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          if (DefaultFaceEventLoop.driving(loop.getFace()) != loop) {
+            throw new IOException("The event loop driving the face stopped.");
+          }
+        }
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
       logger.log(Level.FINE, "Failed to retrieve data.", e);
       throw new IOException("Failed to retrieve data.", e);
     }
@@ -154,12 +395,190 @@ public class SimpleClient implements Client {
 
   /**
    * Create a default interest for a given {@link Name} using the client's
-   * passed settings (see {@link #SimpleClient(long, long)})
+   * passed settings (see {@link #SimpleClient(long, long)}); if the client was
+   * built with an {@link RttEstimator}, the lifetime is the estimator's current
+   * retransmission timeout for the name
    *
    * @param name the {@link Name} of the data to retrieve
    * @return a default interest for the given name
    */
+  @Override
   public Interest getDefaultInterest(Name name) {
+    if (rttEstimator != null) {
+      return new Interest(name, rttEstimator.getRetransmissionTimeout(name));
+    }
     return new Interest(name, interestLifetime);
   }
+
+  /**
+   * @return the estimator used by this client or null if the client uses a
+   * fixed Interest lifetime
+   */
+  public RttEstimator getRttEstimator() {
+    return rttEstimator;
+  }
+
+  /**
+   * Helper class identifying equivalent in-flight requests: the same face and
+   * the same Interest name and selectors (the nonce and lifetime are ignored)
+   */
+  private static class InFlightKey {
+    private final Face face;
+    private final Name name;
+    private final String selectors;
+
+    InFlightKey(Face face, Interest interest) {
+      KeyLocator keyLocator = interest.getKeyLocator();
+      this.face = face;
+      this.name = interest.getName();
+      this.selectors = interest.getMinSuffixComponents() + "," + interest.getMaxSuffixComponents() + ","
+          + interest.getChildSelector() + "," + interest.getMustBeFresh() + "," + interest.getExclude().toUri() + ","
+          + keyLocator.getType() + "," + keyLocator.getKeyName().toUri() + "," + keyLocator.getKeyData().toHex();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof InFlightKey)) {
+        return false;
+      }
+      InFlightKey other = (InFlightKey) o;
+      return face == other.face && name.equals(other.name) && selectors.equals(other.selectors);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * System.identityHashCode(face) + name.hashCode()) + selectors.hashCode();
+    }
+  }
+
+  /**
+   * Helper class tracking the requests of one
+   * {@link #getAllAsync(Face, Collection, int)} call; a single instance is the
+   * callback for all of its Interests
+   */
+  class Batch implements OnData, OnTimeout {
+    private final Face face;
+    private final int maxOutstanding;
+    private final Queue<Interest> unsent = new ArrayDeque<>();
+    private final Map<Name, Request> outstanding = new HashMap<>();
+    private final Map<Name, Data> results = new LinkedHashMap<>();
+    private final CompletableFuture<Map<Name, Data>> future = new CompletableFuture<>();
+    private int remaining;
+    private boolean failed = false;
+    private boolean sending = false;
+
+    private Batch(Face face, Collection<Interest> interests, int maxOutstanding) {
+      this.face = face;
+      this.maxOutstanding = maxOutstanding;
+      for (Interest interest : interests) {
+        if (!results.containsKey(interest.getName())) {
+          results.put(interest.getName(), null); // reserve the slot to keep the request order
+          unsent.add(interest);
+        }
+      }
+      this.remaining = unsent.size();
+    }
+
+    /**
+     * Send unsent Interests while there is room; a request completing during
+     * {@link #send(Face, Interest, Batch)} calls back here on the same thread,
+     * so that call returns at once and the loop below picks up the room freed
+     * instead of recursing once per request
+     */
+    private synchronized void sendMore() {
+      if (sending) {
+        return;
+      }
+      sending = true;
+      try {
+        while (!future.isDone() && !unsent.isEmpty() && outstanding.size() < maxOutstanding) {
+          Interest interest = unsent.poll();
+          logger.log(Level.FINER, "Sending interest for: {0}", interest.getName());
+          Request request = new Request(System.nanoTime());
+          outstanding.put(interest.getName(), request);
+          try {
+            request.cancellation = send(face, interest, this); // may already have completed
+          } catch (IOException e) {
+            logger.log(Level.FINE, "IO failure while sending interest: ", e);
+            fail(e);
+          }
+        }
+      } finally {
+        sending = false;
+      }
+      if (remaining == 0) {
+        future.complete(results);
+      }
+    }
+
+    @Override
+    public synchronized void onData(Interest interest, Data data) {
+      Request request = outstanding.get(interest.getName());
+      if (rttEstimator != null && request != null) {
+        rttEstimator.addMeasurement(interest.getName(), (System.nanoTime() - request.sentAt) / 1000000.0);
+      }
+      complete(interest, data);
+    }
+
+    @Override
+    public synchronized void onTimeout(Interest interest) {
+      outstanding.remove(interest.getName()); // no longer pending on the face
+      if (backoff) {
+        rttEstimator.backoff(interest.getName());
+      }
+      String message = interest.getInterestLifetimeMilliseconds() + "ms timeout exceeded: " + interest.getName().toUri();
+      fail(new TimeoutException(message));
+    }
+
+    /**
+     * @param interest the sent Interest
+     * @param data the response to the Interest
+     */
+    synchronized void complete(Interest interest, Data data) {
+      if (outstanding.remove(interest.getName()) == null || future.isDone()) {
+        return;
+      }
+      logger.log(Level.FINER, "Retrieved data: {0}", data.getName());
+      results.put(interest.getName(), data);
+      remaining--;
+      sendMore();
+    }
+
+    /**
+     * Abandon the outstanding requests so that their callbacks and pending
+     * Interests do not linger until they time out, then fail the batch
+     *
+     * @param failure the reason a request of the batch failed
+     */
+    synchronized void fail(Throwable failure) {
+      if (failed) {
+        return; // e.g. reported again by a request cancelled below
+      }
+      failed = true;
+      unsent.clear();
+      List<Request> abandoned = new ArrayList<>(outstanding.values());
+      outstanding.clear();
+      for (Request request : abandoned) {
+        if (request.cancellation != null) {
+          request.cancellation.cancel();
+        }
+      }
+      future.completeExceptionally(failure);
+    }
+  }
+
+  /**
+   * Helper data structure; a request of a batch
+   */
+  private static class Request {
+    final long sentAt;
+    Cancellation cancellation;
+
+    Request(long sentAt) {
+      this.sentAt = sentAt;
+    }
+  }
 }
@@ -18,36 +18,85 @@ import com.intel.jndn.utils.PendingInterestTable;
 import net.named_data.jndn.Interest;
 import net.named_data.jndn.Name;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
- * TODO use NameTree for storage? or Set and override Interest equals()
+ * Store pending interests by name in a {@link ConcurrentBoundedLinkedMap}; once full, the
+ * oldest entry is replaced. Entries also expire once their Interest lifetime
+ * has passed (or {@link NameTreePendingInterestTable#DEFAULT_INTEREST_LIFETIME}
+ * if none is set), tracked in a {@link HashedTimingWheel}; an entry's
+ * expiration is cancelled as soon as the entry is replaced, evicted or removed,
+ * so the wheel never holds more than the table.
+ * <p>
+ * Lookups read the map without locking and ignore entries past their deadline;
+ * only the wheel is guarded by a lock. Lookups advance the wheel if the lock is
+ * free and otherwise leave it to the next caller, so Interest arrival and
+ * publishers only contend on the short wheel updates of adds and removals.
+ * Since the table is keyed by Interest name, {@link #extract(Name)} looks up
+ * each prefix of the Data name instead of scanning the table. The names are
+ * also indexed in canonical order, so {@link #has(Interest)} with a child
+ * selector seeks to the first (or last) name under the Interest name and only
+ * scans on past names the Interest's selectors reject. See
+ * {@link NameTreePendingInterestTable} for a tree-indexed alternative.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
 public class BoundedInMemoryPendingInterestTable implements PendingInterestTable {
   private static final Logger LOGGER = Logger.getLogger(BoundedInMemoryPendingInterestTable.class.getName());
-  private final BoundedLinkedMap<Name, Interest> table;
+  private final ConcurrentBoundedLinkedMap<Name, Entry> table;
+  private final NavigableMap<Name, Entry> sorted = new ConcurrentSkipListMap<>(Name::compare);
+  private final HashedTimingWheel<Entry> expirations;
+  private final ReentrantLock expirationsLock = new ReentrantLock();
 
   public BoundedInMemoryPendingInterestTable(int maxSize) {
-    this.table = new BoundedLinkedMap<>(maxSize);
+    // evictions happen inside add(), which holds the lock the wheel needs
+    this.table = new ConcurrentBoundedLinkedMap<>(maxSize, (name, entry) -> {
+      entry.timeout.cancel();
+      sorted.remove(name, entry);
+    });
+    this.expirations = new HashedTimingWheel<>();
   }
 
   @Override
   public void add(Interest interest) {
-    LOGGER.log(Level.INFO, "Adding pending interest: {0}", interest.toUri());
-    table.put(interest.getName(), interest);
+    LOGGER.log(Level.FINE, "Adding pending interest: {0}", interest.toUri());
+    long now = System.currentTimeMillis();
+    double lifetime = interest.getInterestLifetimeMilliseconds();
+    Entry entry = new Entry(interest, now + (long) (lifetime < 0 ? NameTreePendingInterestTable.DEFAULT_INTEREST_LIFETIME : lifetime));
+    expirationsLock.lock();
+    try {
+      expire(now);
+      entry.timeout = expirations.schedule(entry, entry.deadline);
+      sorted.put(interest.getName(), entry); // before the table, so every name in the table is indexed
+      Entry replaced = table.put(interest.getName(), entry);
+      if (replaced != null) {
+        replaced.timeout.cancel();
+      }
+    } finally {
+      expirationsLock.unlock();
+    }
   }
 
   @Override
   public boolean has(Interest interest) {
+    long now = System.currentTimeMillis();
+    tryExpire(now);
     if (interest.getChildSelector() != -1) {
-      for (Name name : table.keySet()) {
-        // TODO this logic must be more complex; must match selectors as well
-        if (interest.matchesName(name)) {
+      Name prefix = interest.getName();
+      NavigableMap<Name, Entry> beneath = prefix.size() == 0 ? sorted : sorted.subMap(prefix, true, prefix.getSuccessor(), false);
+      if (interest.getChildSelector() == Interest.CHILD_SELECTOR_RIGHT) {
+        beneath = beneath.descendingMap();
+      }
+      for (Entry entry : beneath.values()) {
+        // the index may briefly hold entries already removed from the table
+        if (entry.isPending(now) && interest.matchesName(entry.interest.getName()) && table.get(entry.interest.getName()) == entry) {
           return true;
         }
       }
@@ -58,11 +107,111 @@ public class BoundedInMemoryPendingInterestTable implements PendingInterestTable
   }
 
   public boolean has(Name name) {
-    return table.containsKey(name);
+    long now = System.currentTimeMillis();
+    tryExpire(now);
+    Entry entry = table.get(name);
+    return entry != null && entry.isPending(now);
   }
 
   @Override
   public Collection<Interest> extract(Name name) {
-    return table.values().stream().filter(i -> i.matchesName(name)).collect(Collectors.toList());
+    long now = System.currentTimeMillis();
+    tryExpire(now);
+    // an Interest can only match Data under its own name, i.e. one of the Data name's prefixes
+    List<Entry> extracted = new ArrayList<>();
+    for (int i = 0; i <= name.size(); i++) {
+      Name prefix = name.getPrefix(i);
+      Entry entry = table.get(prefix);
+      if (entry != null && entry.isPending(now) && entry.interest.matchesName(name) && table.remove(prefix, entry)) {
+        sorted.remove(prefix, entry);
+        extracted.add(entry);
+      }
+    }
+    if (extracted.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    List<Interest> interests = new ArrayList<>(extracted.size());
+    expirationsLock.lock();
+    try {
+      for (Entry entry : extracted) {
+        entry.timeout.cancel();
+        interests.add(entry.interest);
+      }
+    } finally {
+      expirationsLock.unlock();
+    }
+    return interests;
+  }
+
+  @Override
+  public boolean remove(Interest interest) {
+    tryExpire(System.currentTimeMillis());
+    Entry entry = table.get(interest.getName());
+    if (entry == null || entry.interest != interest || !table.remove(interest.getName(), entry)) {
+      return false;
+    }
+    sorted.remove(interest.getName(), entry);
+    expirationsLock.lock();
+    try {
+      entry.timeout.cancel();
+    } finally {
+      expirationsLock.unlock();
+    }
+    return true;
+  }
+
+  /**
+   * @return the number of expirations still scheduled; for testing
+   */
+  int scheduled() {
+    expirationsLock.lock();
+    try {
+      return expirations.size();
+    } finally {
+      expirationsLock.unlock();
+    }
+  }
+
+  /**
+   * Advance the wheel unless another thread is using it; lookups check deadlines themselves, so skipping is safe
+   */
+  private void tryExpire(long now) {
+    if (expirationsLock.tryLock()) {
+      try {
+        expire(now);
+      } finally {
+        expirationsLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Callers must hold the expirations lock
+   */
+  private void expire(long now) {
+    // only removes the expired entry, not one that replaced it under the same name
+    expirations.advance(now, entry -> {
+      table.remove(entry.interest.getName(), entry);
+      sorted.remove(entry.interest.getName(), entry);
+    });
+  }
+
+  /**
+   * Helper data structure; a pending interest and the handle to its expiration
+   */
+  private static class Entry {
+    final Interest interest;
+    final long deadline;
+    HashedTimingWheel.Timeout<Entry> timeout; // guarded by the expirations lock
+
+    Entry(Interest interest, long deadline) {
+      this.interest = interest;
+      this.deadline = deadline;
+    }
+
+    boolean isPending(long now) {
+      return now < deadline;
+    }
   }
 }
@@ -32,7 +32,8 @@ import java.util.Set;
  * LinkedHashMap. This allows us to decorate with some custom behavior and synchronize as we need.
  * <p>
  * This class is coarsely thread-safe; every public method is synchronized for one-at-a-time access to the underlying
- * map.
+ * map. The collection views are not guarded by the lock, however, and must not be used while other threads modify the
+ * map; see {@link ConcurrentBoundedLinkedMap} for a concurrent alternative.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
@@ -0,0 +1,496 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.NameTree;
+import com.intel.jndn.utils.SortedNameTree;
+import net.named_data.jndn.Name;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * Name tree with a compact node layout, for trees holding millions of names. A node does not keep a {@link
+ * Name.Component}: components of up to seven bytes are packed with their length into a single {@code long} and longer
+ * ones are kept as a bare {@code byte[]}, optionally shared through an {@link InternPool}. Children are kept in an
+ * array sorted in canonical component order and found by binary search; adding a child shifts the larger ones, which
+ * is cheap for small child sets and for children appended in order (e.g. sequence numbers or segments). The weigher
+ * and intern pool are kept only at the root.
+ * <p>
+ * Component objects are created on demand by {@link #lastComponent()} and {@link #fullName()}; lookups do not
+ * allocate. As for {@link DefaultNameTree}, each node aggregates the count and weight of its subtree. Collections of
+ * children are snapshots copied at the time of the call, since adding or removing a child shifts the others in place;
+ * later writes do not change them. This class is not thread-safe.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class CompactNameTree<T> implements SortedNameTree<T> {
+  private static final int MAX_INLINE_LENGTH = 7;
+  private static final long NOT_INLINE = -1;
+  private static final CompactNameTree<?>[] NO_CHILDREN = new CompactNameTree<?>[0];
+  private final CompactNameTree<T> parent;
+  private final long inline; // length in the top byte, then the value as a big-endian number; sorts canonically
+  private final byte[] bytes; // the value of components too long to be inlined, otherwise null
+  private T content;
+  private CompactNameTree<T>[] children = empty();
+  private int childCount = 0;
+  private int count = 0;
+  private long weight = 0;
+
+  private CompactNameTree(CompactNameTree<T> parent, long inline, byte[] bytes) {
+    this.parent = parent;
+    this.inline = inline;
+    this.bytes = bytes;
+  }
+
+  public static <T> SortedNameTree<T> newRootTree() {
+    return newRootTree(content -> 0, null);
+  }
+
+  /**
+   * @param weigher the function measuring the weight of content, e.g. its size in bytes
+   * @param pool the pool in which to intern long components or null to keep a copy of each
+   * @return a new, empty tree
+   */
+  public static <T> SortedNameTree<T> newRootTree(ToLongFunction<? super T> weigher, InternPool pool) {
+    return new Root<>(weigher, pool);
+  }
+
+  @Override
+  public Optional<T> content() {
+    return Optional.ofNullable(content);
+  }
+
+  @Override
+  public Name fullName() {
+    int depth = 0;
+    for (CompactNameTree<T> node = this; node.parent != null; node = node.parent) {
+      depth++;
+    }
+
+    Name.Component[] components = new Name.Component[depth];
+    for (CompactNameTree<T> node = this; node.parent != null; node = node.parent) {
+      components[--depth] = node.lastComponent();
+    }
+    return new Name(components);
+  }
+
+  @Override
+  public Name.Component lastComponent() {
+    if (parent == null) {
+      return null;
+    }
+    if (bytes != null) {
+      return new Name.Component(bytes);
+    }
+
+    byte[] value = new byte[(int) (inline >>> 56)];
+    for (int i = 0; i < value.length; i++) {
+      value[i] = (byte) (inline >>> (8 * (value.length - 1 - i)));
+    }
+    return new Name.Component(value);
+  }
+
+  @Override
+  public Collection<NameTree<T>> children() {
+    return Collections.unmodifiableCollection(new Children(0, childCount, false));
+  }
+
+  @Override
+  public NameTree<T> parent() {
+    return parent;
+  }
+
+  @Override
+  public CompactNameTree<T> child(Name.Component component) {
+    int index = indexOf(component);
+    return index < 0 ? null : children[index];
+  }
+
+  @Override
+  public CompactNameTree<T> lookup(Name name, int length) {
+    CompactNameTree<T> node = this;
+    for (int i = 0; i < length && node != null; i++) {
+      node = node.child(name.get(i));
+    }
+    return node;
+  }
+
+  @Override
+  public Optional<NameTree<T>> find(Name name) {
+    return Optional.ofNullable(lookup(name, name.size()));
+  }
+
+  @Override
+  public NameTree<T> insert(Name name, T content) {
+    int depth = 0;
+    CompactNameTree<T> root = this;
+    for (; root.parent != null; root = root.parent) {
+      depth++;
+    }
+    InternPool pool = ((Root<T>) root).pool;
+
+    CompactNameTree<T> node = this;
+    for (int i = 0; i < name.size(); i++) {
+      Name.Component component = name.get(i);
+      int index = node.indexOf(component);
+      if (index < 0) {
+        index = -(index + 1);
+        node.add(index, node.newChild(component, pool, depth + i));
+      }
+      node = node.children[index];
+    }
+
+    T replaced = node.content;
+    node.content = content;
+    node.propagate((content == null ? 0 : 1) - (replaced == null ? 0 : 1), weigh(root, content) - weigh(root, replaced));
+    return node;
+  }
+
+  @Override
+  public Optional<NameTree<T>> delete(Name name) {
+    CompactNameTree<T> node = lookup(name, name.size());
+    if (node == null || node.parent == null) {
+      return Optional.empty();
+    }
+
+    T removed = node.content;
+    node.content = null;
+    node.propagate(removed == null ? 0 : -1, -weigh(node.root(), removed));
+    prune(node);
+    return Optional.of(node);
+  }
+
+  @Override
+  public Optional<NameTree<T>> deleteSubtree(Name prefix) {
+    CompactNameTree<T> node = lookup(prefix, prefix.size());
+    if (node == null || node.parent == null) {
+      return Optional.empty();
+    }
+
+    node.parent.remove(node);
+    node.parent.propagate(-node.count, -node.weight);
+    prune(node.parent);
+    return Optional.of(node);
+  }
+
+  @Override
+  public int count() {
+    return count;
+  }
+
+  @Override
+  public long weight() {
+    return weight;
+  }
+
+  @Override
+  public void clear() {
+    children = empty();
+    childCount = 0;
+    propagate(-(count - (content == null ? 0 : 1)), -(weight - weigh(root(), content)));
+  }
+
+  @Override
+  public SortedNameTree<T> first() {
+    return childCount == 0 ? null : children[0];
+  }
+
+  @Override
+  public SortedNameTree<T> last() {
+    return childCount == 0 ? null : children[childCount - 1];
+  }
+
+  @Override
+  public SortedNameTree<T> ceiling(Name.Component component) {
+    int index = indexOf(component);
+    if (index < 0) {
+      index = -(index + 1);
+    }
+    return index < childCount ? children[index] : null;
+  }
+
+  @Override
+  public SortedNameTree<T> floor(Name.Component component) {
+    int index = indexOf(component);
+    if (index < 0) {
+      index = -(index + 1) - 1;
+    }
+    return index >= 0 ? children[index] : null;
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> ascendingChildren() {
+    return new Children(0, childCount, false);
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> descendingChildren() {
+    return new Children(0, childCount, true);
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> children(Name.Component from, boolean fromInclusive, Name.Component to, boolean toInclusive) {
+    int start = 0;
+    if (from != null) {
+      int index = indexOf(from);
+      start = index >= 0 ? (fromInclusive ? index : index + 1) : -(index + 1);
+    }
+    int end = childCount;
+    if (to != null) {
+      int index = indexOf(to);
+      end = index >= 0 ? (toInclusive ? index + 1 : index) : -(index + 1);
+    }
+    return new Children(start, Math.max(start, end), false);
+  }
+
+  /**
+   * @return the index of the child with this component or, if there is none, (-(insertion point) - 1) as for {@link
+   * java.util.Arrays#binarySearch(Object[], Object)}
+   */
+  private int indexOf(Name.Component component) {
+    ByteBuffer value = component.getValue().buf();
+    int length = value == null ? 0 : value.remaining();
+    long key = length <= MAX_INLINE_LENGTH ? pack(value, length) : NOT_INLINE;
+    return indexOf(key, value);
+  }
+
+  private int indexOf(long key, ByteBuffer value) {
+    int low = 0;
+    int high = childCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = children[middle].compareTo(key, value);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Compare this node's component to another in canonical order: shorter components first, then by unsigned bytes
+   *
+   * @param key the packed component or {@link #NOT_INLINE}
+   * @param value the component bytes, used if the component is not inline
+   */
+  private int compareTo(long key, ByteBuffer value) {
+    if (bytes == null) {
+      return key == NOT_INLINE ? -1 : Long.compare(inline, key);
+    }
+    if (key != NOT_INLINE) {
+      return 1;
+    }
+
+    int length = value.remaining();
+    if (bytes.length != length) {
+      return Integer.compare(bytes.length, length);
+    }
+    for (int i = 0; i < length; i++) {
+      int difference = (bytes[i] & 0xFF) - (value.get(value.position() + i) & 0xFF);
+      if (difference != 0) {
+        return difference;
+      }
+    }
+    return 0;
+  }
+
+  private static long pack(ByteBuffer value, int length) {
+    long key = (long) length << 56;
+    for (int i = 0; i < length; i++) {
+      key |= (long) (value.get(value.position() + i) & 0xFF) << (8 * (length - 1 - i));
+    }
+    return key;
+  }
+
+  private CompactNameTree<T> newChild(Name.Component component, InternPool pool, int depth) {
+    ByteBuffer value = component.getValue().buf();
+    int length = value == null ? 0 : value.remaining();
+    if (length <= MAX_INLINE_LENGTH) {
+      return new CompactNameTree<>(this, pack(value, length), null);
+    }
+
+    byte[] copy = new byte[length];
+    value.duplicate().get(copy);
+    return new CompactNameTree<>(this, NOT_INLINE, pool == null ? copy : pool.intern(copy, depth));
+  }
+
+  private void add(int index, CompactNameTree<T> child) {
+    if (childCount == children.length) {
+      CompactNameTree<T>[] grown = newArray(childCount + (childCount >> 1) + 1);
+      System.arraycopy(children, 0, grown, 0, childCount);
+      children = grown;
+    }
+    System.arraycopy(children, index, children, index + 1, childCount - index);
+    children[index] = child;
+    childCount++;
+  }
+
+  private void remove(CompactNameTree<T> child) {
+    int index = indexOf(child.inline, child.bytes == null ? null : ByteBuffer.wrap(child.bytes));
+    if (index < 0) {
+      return;
+    }
+    childCount--;
+    System.arraycopy(children, index + 1, children, index, childCount - index);
+    children[childCount] = null;
+    if (childCount == 0) {
+      children = empty();
+    } else if (childCount < children.length / 4) {
+      CompactNameTree<T>[] shrunk = newArray(childCount * 2);
+      System.arraycopy(children, 0, shrunk, 0, childCount);
+      children = shrunk;
+    }
+  }
+
+  /**
+   * Detach the node and each of its ancestors while they have neither content nor children
+   */
+  private static <T> void prune(CompactNameTree<T> node) {
+    while (node.parent != null && node.content == null && node.childCount == 0) {
+      node.parent.remove(node);
+      node = node.parent;
+    }
+  }
+
+  /**
+   * Add to the aggregates of this node and of all its ancestors
+   */
+  private void propagate(int countDelta, long weightDelta) {
+    if (countDelta == 0 && weightDelta == 0) {
+      return;
+    }
+    for (CompactNameTree<T> node = this; node != null; node = node.parent) {
+      node.count += countDelta;
+      node.weight += weightDelta;
+    }
+  }
+
+  private Root<T> root() {
+    CompactNameTree<T> node = this;
+    while (node.parent != null) {
+      node = node.parent;
+    }
+    return (Root<T>) node;
+  }
+
+  private static <T> long weigh(CompactNameTree<T> root, T content) {
+    return content == null ? 0 : ((Root<T>) root).weigher.applyAsLong(content);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> CompactNameTree<T>[] empty() {
+    return (CompactNameTree<T>[]) NO_CHILDREN;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> CompactNameTree<T>[] newArray(int length) {
+    return (CompactNameTree<T>[]) new CompactNameTree<?>[length];
+  }
+
+  @Override
+  public String toString() {
+    Name.Component c = lastComponent();
+    return "CompactNameTree{" + (c == null ? null : c.toEscapedString()) + ": " + content + '}';
+  }
+
+  /**
+   * Helper data structure; the root node also holds the state shared by the whole tree
+   */
+  private static class Root<T> extends CompactNameTree<T> {
+    private final ToLongFunction<? super T> weigher;
+    private final InternPool pool;
+
+    Root(ToLongFunction<? super T> weigher, InternPool pool) {
+      super(null, 0, null);
+      this.weigher = weigher;
+      this.pool = pool;
+    }
+  }
+
+  /**
+   * Helper data structure; a copy of a range of the children array
+   */
+  private class Children extends AbstractList<SortedNameTree<T>> {
+    private final CompactNameTree<T>[] array;
+    private final boolean descending;
+
+    Children(int start, int end, boolean descending) {
+      this.array = Arrays.copyOfRange(children, start, end);
+      this.descending = descending;
+    }
+
+    @Override
+    public SortedNameTree<T> get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index);
+      }
+      return array[descending ? array.length - 1 - index : index];
+    }
+
+    @Override
+    public int size() {
+      return array.length;
+    }
+  }
+
+  /**
+   * Share the bytes of long components that recur across the tree (or across trees), e.g. the same device or
+   * application names beneath many prefixes. Only the components of the first levels of the tree are interned, since
+   * deeper components (message IDs, versions, segments) are usually unique and would only grow the pool. Interned
+   * components are kept for the lifetime of the pool. This class is not thread-safe.
+   */
+  public static class InternPool {
+    private final int maxDepth;
+    private final Map<ByteBuffer, byte[]> pool = new HashMap<>();
+
+    /**
+     * @param maxDepth the number of levels beneath the root whose components are interned
+     */
+    public InternPool(int maxDepth) {
+      this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @param bytes the component bytes, which must not be modified afterwards
+     * @param depth the depth of the component in the tree, from 0 for the children of the root
+     * @return the pooled array with the same bytes, or the array itself if it is not interned
+     */
+    byte[] intern(byte[] bytes, int depth) {
+      if (depth >= maxDepth) {
+        return bytes;
+      }
+      return pool.computeIfAbsent(ByteBuffer.wrap(bytes), key -> bytes);
+    }
+
+    /**
+     * @return the number of distinct interned components
+     */
+    public int size() {
+      return pool.size();
+    }
+  }
+}
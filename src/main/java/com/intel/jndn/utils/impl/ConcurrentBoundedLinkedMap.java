@@ -0,0 +1,383 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Concurrent map keeping its entries in order of insertion and bounded to a configurable size; once full, adding a key
+ * replaces the earliest entry. Writing a key's value (by put or replace) makes it the latest entry.
+ * <p>
+ * Entries are indexed in a {@link ConcurrentHashMap} and linked in insertion order; reads ({@link #get(Object)},
+ * {@link #containsKey(Object)}, {@link #earliest()}, {@link #latest()}) never lock and cost O(1), as do insertions and
+ * removals. Writers are serialized by a single lock: since eviction and ordering are global, striping the lock would
+ * not let writers proceed independently. Removed entries keep their link to the next entry, so iteration over the map
+ * and its views is weakly consistent (as for the concurrent collections): it never throws {@link
+ * java.util.ConcurrentModificationException} and sees each entry left untouched during the iteration exactly once; a
+ * key written during the iteration moves to the end and may be seen again there. Null keys and values are not
+ * permitted.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class ConcurrentBoundedLinkedMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+  private final int maxSize;
+  private final BiConsumer<? super K, ? super V> onEvicted;
+  private final ConcurrentHashMap<K, Node<K, V>> index;
+  private final Object writeLock = new Object();
+  private final Set<Map.Entry<K, V>> entries = new EntrySet();
+  private volatile Node<K, V> head;
+  private volatile Node<K, V> tail;
+
+  /**
+   * @param maxSize the maximum allowed number of records to store
+   */
+  public ConcurrentBoundedLinkedMap(int maxSize) {
+    this(maxSize, (key, value) -> {
+    });
+  }
+
+  /**
+   * @param maxSize the maximum allowed number of records to store
+   * @param onEvicted called with each entry replaced to make room for a new key; runs while holding the write lock, so
+   * it must not write to this map
+   */
+  public ConcurrentBoundedLinkedMap(int maxSize, BiConsumer<? super K, ? super V> onEvicted) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("The map must hold at least one entry");
+    }
+    this.maxSize = maxSize;
+    this.onEvicted = Objects.requireNonNull(onEvicted);
+    this.index = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+  }
+
+  /**
+   * @return the earliest key added to this map or null if it is empty
+   */
+  public K earliest() {
+    Node<K, V> node = head;
+    return node == null ? null : node.key;
+  }
+
+  /**
+   * @return the latest key added to this map or null if it is empty
+   */
+  public K latest() {
+    Node<K, V> node = tail;
+    return node == null ? null : node.key;
+  }
+
+  @Override
+  public V get(Object key) {
+    Node<K, V> node = index.get(key);
+    return node == null ? null : node.value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return index.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return index.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return index.isEmpty();
+  }
+
+  @Override
+  public V put(K key, V value) {
+    Objects.requireNonNull(value);
+    synchronized (writeLock) {
+      return append(key, value);
+    }
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    Objects.requireNonNull(value);
+    synchronized (writeLock) {
+      Node<K, V> node = index.get(key);
+      if (node != null) {
+        return node.value;
+      }
+      append(key, value);
+      return null;
+    }
+  }
+
+  @Override
+  public V remove(Object key) {
+    synchronized (writeLock) {
+      Node<K, V> node = index.get(key);
+      if (node == null) {
+        return null;
+      }
+      unlink(node);
+      return node.value;
+    }
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    synchronized (writeLock) {
+      Node<K, V> node = index.get(key);
+      if (node == null || !node.value.equals(value)) {
+        return false;
+      }
+      unlink(node);
+      return true;
+    }
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    Objects.requireNonNull(newValue);
+    synchronized (writeLock) {
+      Node<K, V> node = index.get(key);
+      if (node == null || !node.value.equals(oldValue)) {
+        return false;
+      }
+      append(key, newValue);
+      return true;
+    }
+  }
+
+  @Override
+  public V replace(K key, V value) {
+    Objects.requireNonNull(value);
+    synchronized (writeLock) {
+      return index.containsKey(key) ? append(key, value) : null;
+    }
+  }
+
+  @Override
+  public void clear() {
+    synchronized (writeLock) {
+      for (Node<K, V> node = head; node != null; node = node.next) {
+        node.removed = true;
+      }
+      index.clear();
+      head = null;
+      tail = null;
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return entries;
+  }
+
+  /**
+   * Link a new node for the key at the tail, replacing any existing node for the key and evicting the earliest entry
+   * if the map is full; callers must hold the write lock
+   *
+   * @return the replaced value or null
+   */
+  private V append(K key, V value) {
+    Node<K, V> replaced = index.get(key);
+    if (replaced != null) {
+      detach(replaced); // the index keeps the replaced node until the new one is put, so readers always find the key
+    } else if (index.size() >= maxSize) {
+      Node<K, V> evicted = head;
+      unlink(evicted);
+      onEvicted.accept(evicted.key, evicted.value);
+    }
+
+    Node<K, V> node = new Node<>(key, value);
+    node.previous = tail;
+    if (tail == null) {
+      head = node;
+    } else {
+      tail.next = node;
+    }
+    tail = node;
+    index.put(key, node);
+    return replaced == null ? null : replaced.value;
+  }
+
+  /**
+   * Remove the node from the index and the list; callers must hold the write lock
+   */
+  private void unlink(Node<K, V> node) {
+    index.remove(node.key, node);
+    detach(node);
+  }
+
+  /**
+   * Remove the node from the list; the node keeps its link to the next node so that iterators positioned on it can
+   * continue. Callers must hold the write lock.
+   */
+  private void detach(Node<K, V> node) {
+    node.removed = true;
+    if (node.previous == null) {
+      head = node.next;
+    } else {
+      node.previous.next = node.next;
+    }
+    if (node.next == null) {
+      tail = node.previous;
+    } else {
+      node.next.previous = node.previous;
+    }
+  }
+
+  /**
+   * Helper data structure; an entry linked in insertion order
+   */
+  private static class Node<K, V> implements Map.Entry<K, V> {
+    final K key;
+    final V value;
+    Node<K, V> previous; // guarded by the write lock
+    volatile Node<K, V> next;
+    volatile boolean removed = false;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public V setValue(V value) {
+      throw new UnsupportedOperationException("Entries are immutable; use put() instead.");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      return key.equals(other.getKey()) && value.equals(other.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+  }
+
+  /**
+   * Helper data structure; a weakly consistent view of the entries in insertion order
+   */
+  private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return index.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+      Node<K, V> node = index.get(entry.getKey());
+      return node != null && node.value.equals(entry.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+      return ConcurrentBoundedLinkedMap.this.remove(entry.getKey(), entry.getValue());
+    }
+
+    @Override
+    public void clear() {
+      ConcurrentBoundedLinkedMap.this.clear();
+    }
+  }
+
+  /**
+   * Helper class; follows the links from the earliest entry, skipping removed entries
+   */
+  private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+    private Node<K, V> cursor;
+    private Node<K, V> last;
+
+    /**
+     * The following node is resolved as late as possible so that recent removals and additions are seen
+     */
+    @Override
+    public boolean hasNext() {
+      return skipRemoved(cursor == null ? head : cursor.next) != null;
+    }
+
+    @Override
+    public Map.Entry<K, V> next() {
+      Node<K, V> next = skipRemoved(cursor == null ? head : cursor.next);
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      cursor = next;
+      last = next;
+      return next;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      synchronized (writeLock) {
+        if (!last.removed) {
+          unlink(last);
+        }
+      }
+      last = null;
+    }
+
+    private Node<K, V> skipRemoved(Node<K, V> node) {
+      while (node != null && node.removed) {
+        node = node.next;
+      }
+      return node;
+    }
+  }
+}
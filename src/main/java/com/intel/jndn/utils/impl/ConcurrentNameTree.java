@@ -0,0 +1,297 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.NameTree;
+import com.intel.jndn.utils.SortedNameTree;
+import net.named_data.jndn.Name;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe name tree: the children of each node are kept in a {@link ConcurrentSkipListMap} sorted in canonical
+ * component order and node content is volatile, so readers never lock and never block behind writers. Writers only
+ * contend on the children map of the node they modify: nodes are created with an atomic put-if-absent and deleted with
+ * an atomic remove of the expected node.
+ * <p>
+ * A deleted node is marked before it is unlinked; an insert that raced with the deletion of a node on its path sees
+ * the mark and retries from this node, so inserts are never lost in a detached subtree. Nodes left empty by a delete
+ * are pruned the same way: a node is marked, checked again for content or children written by a racing insert, and
+ * only then unlinked. Iteration over children is
+ * weakly consistent, as for the concurrent collections.
+ * <p>
+ * Unlike {@link DefaultNameTree}, nodes do not keep aggregate counters: an insert racing with the deletion of an
+ * ancestor cannot tell whether the deletion already accounted for it, so {@link #count()} and {@link #weight()} walk
+ * the subtree and are only as consistent as its iteration.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class ConcurrentNameTree<T> implements SortedNameTree<T> {
+  private final ConcurrentNameTree<T> parent;
+  private final Name.Component component;
+  private final ConcurrentSkipListMap<Name.Component, ConcurrentNameTree<T>> children = new ConcurrentSkipListMap<>(Name.Component::compare);
+  private final ToLongFunction<? super T> weigher;
+  private volatile T content;
+  private volatile boolean deleted = false;
+
+  private ConcurrentNameTree(ConcurrentNameTree<T> parent, Name.Component component, ToLongFunction<? super T> weigher) {
+    this.parent = parent;
+    this.component = component;
+    this.weigher = weigher;
+  }
+
+  public static <T> SortedNameTree<T> newRootTree() {
+    return newRootTree(content -> 0);
+  }
+
+  /**
+   * @param weigher the function measuring the weight of content, e.g. its size in bytes
+   * @return a new, empty tree
+   */
+  public static <T> SortedNameTree<T> newRootTree(ToLongFunction<? super T> weigher) {
+    return new ConcurrentNameTree<>(null, null, weigher);
+  }
+
+  @Override
+  public Optional<T> content() {
+    return Optional.ofNullable(content);
+  }
+
+  @Override
+  public Name fullName() {
+    int depth = 0;
+    for (ConcurrentNameTree<T> node = this; node.component != null; node = node.parent) {
+      depth++;
+    }
+
+    Name.Component[] components = new Name.Component[depth];
+    for (ConcurrentNameTree<T> node = this; node.component != null; node = node.parent) {
+      components[--depth] = node.component;
+    }
+    return new Name(components);
+  }
+
+  @Override
+  public Name.Component lastComponent() {
+    return component;
+  }
+
+  @Override
+  public Collection<NameTree<T>> children() {
+    return Collections.unmodifiableCollection(children.values());
+  }
+
+  @Override
+  public NameTree<T> parent() {
+    return parent;
+  }
+
+  @Override
+  public ConcurrentNameTree<T> child(Name.Component component) {
+    return children.get(component);
+  }
+
+  @Override
+  public ConcurrentNameTree<T> lookup(Name name, int length) {
+    ConcurrentNameTree<T> node = this;
+    for (int i = 0; i < length && node != null; i++) {
+      node = node.children.get(name.get(i));
+    }
+    return node;
+  }
+
+  @Override
+  public Optional<NameTree<T>> find(Name name) {
+    return Optional.ofNullable(lookup(name, name.size()));
+  }
+
+  @Override
+  public NameTree<T> insert(Name name, T content) {
+    while (true) {
+      ConcurrentNameTree<T> node = this;
+      for (int i = 0; i < name.size(); i++) {
+        ConcurrentNameTree<T> parentNode = node;
+        node = node.children.computeIfAbsent(name.get(i), c -> new ConcurrentNameTree<>(parentNode, c, weigher));
+      }
+      node.content = content;
+
+      if (!node.isDetachedBelow(this)) {
+        return node;
+      }
+      node.content = null; // a concurrent delete removed part of the path; insert again
+    }
+  }
+
+  @Override
+  public Optional<NameTree<T>> delete(Name name) {
+    ConcurrentNameTree<T> node = lookup(name, name.size());
+    if (node == null || node.parent == null) {
+      return Optional.empty();
+    }
+    node.content = null;
+    prune(node);
+    return Optional.of(node);
+  }
+
+  @Override
+  public Optional<NameTree<T>> deleteSubtree(Name prefix) {
+    ConcurrentNameTree<T> node = lookup(prefix, prefix.size());
+    if (node == null || node.parent == null) {
+      return Optional.empty();
+    }
+    node.deleted = true;
+    if (!node.parent.children.remove(node.component, node)) {
+      return Optional.empty();
+    }
+    prune(node.parent);
+    return Optional.of(node);
+  }
+
+  @Override
+  public int count() {
+    int count = 0;
+    Deque<ConcurrentNameTree<T>> open = new ArrayDeque<>();
+    open.push(this);
+    while (!open.isEmpty()) {
+      ConcurrentNameTree<T> node = open.pop();
+      if (node.content != null) {
+        count++;
+      }
+      open.addAll(node.children.values());
+    }
+    return count;
+  }
+
+  @Override
+  public long weight() {
+    long weight = 0;
+    Deque<ConcurrentNameTree<T>> open = new ArrayDeque<>();
+    open.push(this);
+    while (!open.isEmpty()) {
+      ConcurrentNameTree<T> node = open.pop();
+      T c = node.content;
+      if (c != null) {
+        weight += weigher.applyAsLong(c);
+      }
+      open.addAll(node.children.values());
+    }
+    return weight;
+  }
+
+  @Override
+  public void clear() {
+    for (Map.Entry<Name.Component, ConcurrentNameTree<T>> entry : children.entrySet()) {
+      entry.getValue().deleted = true;
+      children.remove(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public SortedNameTree<T> first() {
+    return value(children.firstEntry());
+  }
+
+  @Override
+  public SortedNameTree<T> last() {
+    return value(children.lastEntry());
+  }
+
+  @Override
+  public SortedNameTree<T> ceiling(Name.Component component) {
+    return value(children.ceilingEntry(component));
+  }
+
+  @Override
+  public SortedNameTree<T> floor(Name.Component component) {
+    return value(children.floorEntry(component));
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> ascendingChildren() {
+    return view(children);
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> descendingChildren() {
+    return view(children.descendingMap());
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> children(Name.Component from, boolean fromInclusive, Name.Component to, boolean toInclusive) {
+    NavigableMap<Name.Component, ConcurrentNameTree<T>> range = children;
+    if (from != null) {
+      range = range.tailMap(from, fromInclusive);
+    }
+    if (to != null) {
+      range = range.headMap(to, toInclusive);
+    }
+    return view(range);
+  }
+
+  /**
+   * Unlink the node and each of its ancestors while they have neither content nor children; the emptiness check is
+   * repeated after marking so that an insert either sees the mark and retries or is seen here
+   */
+  private static <T> void prune(ConcurrentNameTree<T> node) {
+    while (node.parent != null && node.isEmpty()) {
+      node.deleted = true;
+      if (!node.isEmpty()) {
+        node.deleted = false;
+        return;
+      }
+      node.parent.children.remove(node.component, node);
+      node = node.parent;
+    }
+  }
+
+  private boolean isEmpty() {
+    return content == null && children.isEmpty();
+  }
+
+  /**
+   * @param ancestor the node from which an insert started
+   * @return true if this node or any node between it and the ancestor was deleted
+   */
+  private boolean isDetachedBelow(ConcurrentNameTree<T> ancestor) {
+    for (ConcurrentNameTree<T> node = this; node != ancestor; node = node.parent) {
+      if (node.deleted) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static <T> Collection<SortedNameTree<T>> view(NavigableMap<Name.Component, ConcurrentNameTree<T>> map) {
+    return Collections.unmodifiableCollection(map.values());
+  }
+
+  private static <T> SortedNameTree<T> value(Map.Entry<Name.Component, ConcurrentNameTree<T>> entry) {
+    return entry == null ? null : entry.getValue();
+  }
+
+  @Override
+  public String toString() {
+    String c = (component == null) ? null : component.toEscapedString();
+    return "ConcurrentNameTree{" + c + ": " + content + '}';
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.FaceEventLoop;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.encoding.EncodingException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drive a face from a single thread, blocking in a {@link FaceSelector} between
+ * iterations: the loop wakes when work is submitted or when a scheduled task is
+ * due, and otherwise polls the face once per timer resolution so that incoming
+ * packets and jndn's own timers (e.g. Interest timeouts) are processed. With
+ * the {@link #DEFAULT_TIMER_RESOLUTION}, an idle loop therefore wakes about 100
+ * times per second and an incoming packet may wait up to 10 ms; this is much
+ * cheaper than spinning on {@link Face#processEvents()}, but it is still
+ * polling. jndn offers no supported way to be notified of incoming bytes; with
+ * {@link FaceSelector#SELECT_CHANNEL_PROPERTY} set, the loop also wakes as soon
+ * as bytes arrive on a TCP or UDP transport, by reading private jndn fields
+ * (see {@link FaceSelector}), and a longer timer resolution then only delays
+ * jndn's timers.
+ * <p>
+ * The loop either runs on the caller's thread ({@link #run()}) or on a daemon
+ * thread of its own ({@link #start(Face)}). Events are processed while holding
+ * the face's monitor, for compatibility with code synchronizing on the face.
+ * While running, the loop is registered as the face's driver (see {@link
+ * #driving(Face)}) so that other components submit their work to it instead of
+ * processing the face's events themselves.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class DefaultFaceEventLoop implements FaceEventLoop {
+  public static final long DEFAULT_TIMER_RESOLUTION = 10;
+  private static final Logger LOGGER = Logger.getLogger(DefaultFaceEventLoop.class.getName());
+  private static final Map<Face, FaceEventLoop> DRIVERS = Collections.synchronizedMap(new WeakHashMap<>());
+  private final Face face;
+  private final long timerResolution;
+  private final FaceSelector selector;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final PriorityQueue<Timer> timers = new PriorityQueue<>(); // only accessed on the loop thread
+  private volatile Thread thread;
+  private volatile boolean stopped = false;
+  private long timerSequence = 0;
+  private boolean failing = false; // only accessed on the loop thread
+
+  /**
+   * @param face the face to drive
+   * @param timerResolution the maximum time to block between iterations, in
+   * milliseconds; bounds how late jndn's timers run
+   */
+  public DefaultFaceEventLoop(Face face, long timerResolution) {
+    if (timerResolution <= 0) {
+      throw new IllegalArgumentException("The timer resolution must be positive");
+    }
+    this.face = face;
+    this.timerResolution = timerResolution;
+    this.selector = new FaceSelector(face);
+  }
+
+  /**
+   * @param face the face to drive, with a timer resolution of {@link
+   * #DEFAULT_TIMER_RESOLUTION}
+   */
+  public DefaultFaceEventLoop(Face face) {
+    this(face, DEFAULT_TIMER_RESOLUTION);
+  }
+
+  /**
+   * @param face the face to drive
+   * @return a loop running on a new daemon thread
+   */
+  public static DefaultFaceEventLoop start(Face face) {
+    DefaultFaceEventLoop loop = new DefaultFaceEventLoop(face);
+    Thread thread = new Thread(loop, "face-event-loop");
+    thread.setDaemon(true);
+    loop.thread = thread;
+    DRIVERS.put(face, loop); // registered before the thread runs so that callers can rely on it immediately
+    thread.start();
+    return loop;
+  }
+
+  /**
+   * @param face a face
+   * @return the loop currently driving the face or null if none is running
+   */
+  public static FaceEventLoop driving(Face face) {
+    return DRIVERS.get(face);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Face getFace() {
+    return face;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void execute(Runnable task) {
+    if (stopped) {
+      throw new RejectedExecutionException("The event loop has stopped");
+    }
+    tasks.add(task);
+    if (stopped && tasks.remove(task)) { // the loop may have drained its tasks before this one was added
+      throw new RejectedExecutionException("The event loop has stopped");
+    }
+    selector.wakeup();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> CompletableFuture<T> submit(Callable<T> task) {
+    Submission<T> submission = new Submission<>(task);
+    try {
+      execute(submission);
+    } catch (RejectedExecutionException e) {
+      submission.future.completeExceptionally(e);
+    }
+    return submission.future;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void schedule(Runnable task, long delayMs) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+    execute(() -> timers.add(new Timer(deadline, timerSequence++, task)));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean inEventLoop() {
+    return Thread.currentThread() == thread;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void run() {
+    thread = Thread.currentThread();
+    DRIVERS.put(face, this);
+    try {
+      while (!stopped && !thread.isInterrupted()) {
+        runTasks();
+        long waitMs = runTimers();
+        processEvents();
+        if (!stopped && tasks.isEmpty()) {
+          selector.await(waitMs);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.SEVERE, "Failed to wait for face events, stopping.", e);
+    } finally {
+      stopped = true;
+      DRIVERS.remove(face, this);
+      rejectTasks();
+      timers.clear();
+      try {
+        selector.close();
+      } catch (IOException e) {
+        LOGGER.log(Level.FINE, "Failed to close the selector.", e);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void shutdown() {
+    stopped = true;
+    rejectTasks(); // in case the loop never runs
+    selector.wakeup();
+  }
+
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      run(task);
+    }
+  }
+
+  /**
+   * Discard the pending tasks, failing the futures of submitted ones so that
+   * no caller waits on a stopped loop
+   */
+  private void rejectTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      if (task instanceof Submission) {
+        ((Submission<?>) task).future.completeExceptionally(new RejectedExecutionException("The event loop has stopped"));
+      }
+    }
+  }
+
+  /**
+   * @return the time until the next timer is due, bounded by the timer
+   * resolution, in milliseconds
+   */
+  private long runTimers() {
+    long now = System.nanoTime();
+    while (!timers.isEmpty() && timers.peek().deadline - now <= 0) {
+      run(timers.poll().task);
+    }
+    if (timers.isEmpty()) {
+      return timerResolution;
+    }
+    long untilNext = TimeUnit.NANOSECONDS.toMillis(timers.peek().deadline - now) + 1;
+    return Math.min(timerResolution, untilNext);
+  }
+
+  private void processEvents() {
+    try {
+      synchronized (face) {
+        face.processEvents();
+      }
+      failing = false;
+    } catch (IOException e) {
+      failed("Failed to process events.", e);
+    } catch (EncodingException e) {
+      failed("Failed to parse bytes.", e);
+    } catch (RuntimeException e) { // e.g. a transport that cannot process events before it connects
+      failed("Failed to process events.", e);
+    }
+  }
+
+  /**
+   * A failure to process events likely repeats on every iteration; only the
+   * first of a run of failures is logged as severe
+   */
+  private void failed(String message, Exception e) {
+    LOGGER.log(failing ? Level.FINE : Level.SEVERE, message, e);
+    failing = true;
+  }
+
+  private static void run(Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      LOGGER.log(Level.SEVERE, "Event loop task failed.", e);
+    }
+  }
+
+  /**
+   * Helper data structure; a submitted task and the future completed once it
+   * has run or been rejected
+   */
+  private static class Submission<T> implements Runnable {
+    final Callable<T> task;
+    final CompletableFuture<T> future = new CompletableFuture<>();
+
+    Submission(Callable<T> task) {
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      try {
+        future.complete(task.call());
+      } catch (Exception e) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+
+  /**
+   * Helper data structure; a task due at a deadline, ordered by deadline then
+   * submission
+   */
+  private static class Timer implements Comparable<Timer> {
+    final long deadline;
+    final long sequence;
+    final Runnable task;
+
+    Timer(long deadline, long sequence, Runnable task) {
+      this.deadline = deadline;
+      this.sequence = sequence;
+      this.task = task;
+    }
+
+    @Override
+    public int compareTo(Timer other) {
+      int byDeadline = Long.compare(deadline - other.deadline, 0);
+      return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+    }
+  }
+}
@@ -19,31 +19,71 @@ import net.named_data.jndn.Name;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.ToLongFunction;
 
 /**
- * TODO need a way to bound the size
+ * Name tree keeping the children of each node in a {@link HashMap}. Each node also aggregates the number and weight
+ * (as measured by the tree's weigher, e.g. content bytes) of the content stored in its subtree; the aggregates are
+ * updated along the path to the root on each insert and delete, so {@link #count()} and {@link #weight()} cost O(1)
+ * at any node. This class is not thread-safe; see {@link ConcurrentNameTree}.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
 public class DefaultNameTree<T> implements NameTree<T> {
+  private static final ToLongFunction<Object> NO_WEIGHT = content -> 0;
   private final DefaultNameTree<T> parent;
-  private final Map<Name.Component, DefaultNameTree<T>> children = new HashMap<>();
+  final Map<Name.Component, DefaultNameTree<T>> children;
+  private final ToLongFunction<? super T> weigher;
   private Name.Component component;
   private T content;
+  private int count = 0;
+  private long weight = 0;
 
   DefaultNameTree(DefaultNameTree<T> parent) {
+    this(parent, new HashMap<>(), parent == null ? NO_WEIGHT : parent.weigher);
+  }
+
+  /**
+   * @param parent the parent node or null for a root node
+   * @param children the (empty) map in which to keep the children of this node
+   * @param weigher the function measuring the weight of content
+   */
+  DefaultNameTree(DefaultNameTree<T> parent, Map<Name.Component, DefaultNameTree<T>> children, ToLongFunction<? super T> weigher) {
     this.parent = parent;
+    this.children = children;
+    this.weigher = weigher;
+  }
+
+  /**
+   * @return a new, empty child node of this node; subclasses override this to build nodes of their own type
+   */
+  DefaultNameTree<T> newChild() {
+    return new DefaultNameTree<>(this);
   }
 
   public static <T> NameTree<T> newRootTree() {
     return new DefaultNameTree<>(null);
   }
 
+  /**
+   * @param weigher the function measuring the weight of content, e.g. its size in bytes
+   * @return a new, empty tree
+   */
+  public static <T> NameTree<T> newRootTree(ToLongFunction<? super T> weigher) {
+    return new DefaultNameTree<>(null, new HashMap<>(), weigher);
+  }
+
+  /**
+   * @return the function measuring the weight of content in this tree
+   */
+  ToLongFunction<? super T> weigher() {
+    return weigher;
+  }
+
   @Override
   public Optional<T> content() {
     return Optional.ofNullable(content);
@@ -51,13 +91,15 @@ public class DefaultNameTree<T> implements NameTree<T> {
 
   @Override
   public Name fullName() {
-    ArrayList<Name.Component> components = new ArrayList<>();
-    NameTree<T> self = this;
-    while (self.lastComponent() != null) {
-      components.add(self.lastComponent());
-      self = self.parent();
+    int depth = 0;
+    for (DefaultNameTree<T> node = this; node.component != null; node = node.parent) {
+      depth++;
+    }
+
+    Name.Component[] components = new Name.Component[depth];
+    for (DefaultNameTree<T> node = this; node.component != null; node = node.parent) {
+      components[--depth] = node.component;
     }
-    Collections.reverse(components);
     return new Name(components);
   }
 
@@ -82,68 +124,111 @@ public class DefaultNameTree<T> implements NameTree<T> {
 
   @Override
   public Optional<NameTree<T>> find(Name name) {
-    if (name.size() == 0) {
-      return Optional.of(this);
-    } else {
-      Name.Component first = name.get(0);
-      DefaultNameTree<T> child = children.get(first);
-      if (child == null) {
-        return Optional.empty();
-      } else {
-        return child.find(name.size() > 1 ? name.getSubName(1) : new Name());
-      }
-    }
+    return Optional.ofNullable(lookup(name, name.size()));
   }
 
   @Override
-  public NameTree<T> insert(Name name, T content) {
-    Name.Component first = name.get(0);
+  public NameTree<T> child(Name.Component component) {
+    return children.get(component);
+  }
 
-    DefaultNameTree<T> child = children.get(first);
-    if (child == null) {
-      child = new DefaultNameTree<>(this);
-      child.component = first;
-      children.put(first, child);
+  @Override
+  public DefaultNameTree<T> lookup(Name name, int length) {
+    DefaultNameTree<T> node = this;
+    for (int i = 0; i < length && node != null; i++) {
+      node = node.children.get(name.get(i));
     }
+    return node;
+  }
 
-    if (name.size() == 1) {
-      child.content = content;
-      return child;
-    } else {
-      return child.insert(name.getSubName(1), content);
+  @Override
+  public NameTree<T> insert(Name name, T content) {
+    DefaultNameTree<T> node = this;
+    for (int i = 0; i < name.size(); i++) {
+      Name.Component component = name.get(i);
+      DefaultNameTree<T> child = node.children.get(component);
+      if (child == null) {
+        child = node.newChild();
+        child.component = component;
+        node.children.put(component, child);
+      }
+      node = child;
     }
+
+    T replaced = node.content;
+    node.content = content;
+    node.propagate((content == null ? 0 : 1) - (replaced == null ? 0 : 1), weigh(content) - weigh(replaced));
+    return node;
   }
 
   @Override
   public Optional<NameTree<T>> delete(Name name) {
-    if (name.size() == 0) {
-      return Optional.of(parent.deleteChild(this.component));
-    } else {
-      Name.Component first = name.get(0);
-      DefaultNameTree<T> child = children.get(first);
-      if (child == null) {
-        return Optional.empty();
-      } else {
-        if (children.size() == 1) {
-          children.remove(first);
-        }
-        return child.delete(name.getSubName(1));
-      }
+    DefaultNameTree<T> node = lookup(name, name.size());
+    if (node == null || node.parent == null) {
+      return Optional.empty();
     }
+
+    T removed = node.content;
+    node.content = null;
+    node.propagate(removed == null ? 0 : -1, -weigh(removed));
+    prune(node);
+    return Optional.of(node);
   }
 
-  private NameTree<T> deleteChild(Name.Component component) {
-    return children.remove(component);
+  @Override
+  public Optional<NameTree<T>> deleteSubtree(Name prefix) {
+    DefaultNameTree<T> node = lookup(prefix, prefix.size());
+    if (node == null || node.parent == null) {
+      return Optional.empty();
+    }
+
+    node.parent.children.remove(node.component);
+    node.parent.propagate(-node.count, -node.weight);
+    prune(node.parent);
+    return Optional.of(node);
   }
 
   @Override
   public int count() {
-    throw new UnsupportedOperationException("Breadth-first search?");
+    return count;
+  }
+
+  @Override
+  public long weight() {
+    return weight;
   }
 
   @Override
   public void clear() {
     children.clear();
+    propagate(-(count - (content == null ? 0 : 1)), -(weight - weigh(content)));
+  }
+
+  /**
+   * Add to the aggregates of this node and of all its ancestors
+   */
+  private void propagate(int countDelta, long weightDelta) {
+    if (countDelta == 0 && weightDelta == 0) {
+      return;
+    }
+    for (DefaultNameTree<T> node = this; node != null; node = node.parent) {
+      node.count += countDelta;
+      node.weight += weightDelta;
+    }
+  }
+
+  /**
+   * Detach the node and each of its ancestors while they have neither content nor children
+   */
+  private static <T> void prune(DefaultNameTree<T> node) {
+    while (node.parent != null && node.content == null && node.children.isEmpty()) {
+      node.parent.children.remove(node.component);
+      node = node.parent;
+    }
+  }
+
+  private long weigh(T content) {
+    return content == null ? 0 : weigher.applyAsLong(content);
   }
 
   @Override
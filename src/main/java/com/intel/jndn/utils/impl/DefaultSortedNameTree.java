@@ -0,0 +1,131 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.NameTree;
+import com.intel.jndn.utils.SortedNameTree;
+import net.named_data.jndn.Name;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Name tree keeping the children of each node in a {@link TreeMap} sorted in canonical component order; finding the
+ * leftmost, rightmost or nearest child costs O(log n) in the number of children and iteration needs no copying or
+ * sorting.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class DefaultSortedNameTree<T> extends DefaultNameTree<T> implements SortedNameTree<T> {
+  private final NavigableMap<Name.Component, DefaultNameTree<T>> sorted;
+
+  private DefaultSortedNameTree(DefaultSortedNameTree<T> parent, NavigableMap<Name.Component, DefaultNameTree<T>> children, ToLongFunction<? super T> weigher) {
+    super(parent, children, weigher);
+    this.sorted = children;
+  }
+
+  private DefaultSortedNameTree(DefaultSortedNameTree<T> parent, ToLongFunction<? super T> weigher) {
+    this(parent, new TreeMap<>(Name.Component::compare), weigher);
+  }
+
+  public static <T> SortedNameTree<T> newRootTree() {
+    return newRootTree(content -> 0);
+  }
+
+  /**
+   * @param weigher the function measuring the weight of content, e.g. its size in bytes
+   * @return a new, empty tree
+   */
+  public static <T> SortedNameTree<T> newRootTree(ToLongFunction<? super T> weigher) {
+    return new DefaultSortedNameTree<>(null, weigher);
+  }
+
+  @Override
+  DefaultNameTree<T> newChild() {
+    return new DefaultSortedNameTree<>(this, weigher());
+  }
+
+  @Override
+  public DefaultSortedNameTree<T> lookup(Name name, int length) {
+    return (DefaultSortedNameTree<T>) super.lookup(name, length); // every child of a sorted node is sorted (see newChild())
+  }
+
+  @Override
+  public Collection<NameTree<T>> children() {
+    return Collections.unmodifiableCollection(sorted.values());
+  }
+
+  @Override
+  public SortedNameTree<T> first() {
+    return value(sorted.firstEntry());
+  }
+
+  @Override
+  public SortedNameTree<T> last() {
+    return value(sorted.lastEntry());
+  }
+
+  @Override
+  public SortedNameTree<T> ceiling(Name.Component component) {
+    return value(sorted.ceilingEntry(component));
+  }
+
+  @Override
+  public SortedNameTree<T> floor(Name.Component component) {
+    return value(sorted.floorEntry(component));
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> ascendingChildren() {
+    return view(sorted);
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> descendingChildren() {
+    return view(sorted.descendingMap());
+  }
+
+  @Override
+  public Collection<SortedNameTree<T>> children(Name.Component from, boolean fromInclusive, Name.Component to, boolean toInclusive) {
+    NavigableMap<Name.Component, DefaultNameTree<T>> range = sorted;
+    if (from != null) {
+      range = range.tailMap(from, fromInclusive);
+    }
+    if (to != null) {
+      range = range.headMap(to, toInclusive);
+    }
+    return view(range);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Collection<SortedNameTree<T>> view(NavigableMap<Name.Component, DefaultNameTree<T>> map) {
+    // every child of a sorted node is itself a sorted node (see newChild())
+    return (Collection<SortedNameTree<T>>) (Collection<?>) Collections.unmodifiableCollection(map.values());
+  }
+
+  private static <T> SortedNameTree<T> value(Map.Entry<Name.Component, DefaultNameTree<T>> entry) {
+    return entry == null ? null : (SortedNameTree<T>) entry.getValue();
+  }
+
+  @Override
+  public String toString() {
+    String c = (lastComponent() == null) ? null : lastComponent().toEscapedString();
+    return "DefaultSortedNameTree{" + c + ": " + content().orElse(null) + '}';
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Node;
+import net.named_data.jndn.transport.TcpTransport;
+import net.named_data.jndn.transport.Transport;
+import net.named_data.jndn.transport.UdpTransport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Block the thread driving a {@link Face} until the face may have events to
+ * process or a timeout elapses; either way the wait ends early on {@link
+ * #wakeup()}. By default the thread simply parks until the timeout, i.e. the
+ * face's events are polled once per timeout.
+ * <p>
+ * Optionally (see {@link #SELECT_CHANNEL_PROPERTY} and {@link
+ * #FaceSelector(Face, boolean)}), the wait also ends as soon as bytes arrive on
+ * the channel of a TCP or UDP transport. jndn does not expose the channel, so
+ * this fast path reads private jndn fields reflectively; it relies on no
+ * supported jndn API, which is why it is opt-in. If a jndn release renames the
+ * fields or the runtime denies access (e.g. the module system), the selector
+ * falls back to polling. Other transports (e.g. in-memory faces used for
+ * testing) are always polled.
+ * <p>
+ * The timeout bounds how late jndn's own timers (e.g. Interest timeouts and
+ * {@link Face#callLater(double, Runnable)}) run, since their deadlines are not
+ * visible either. Only one thread may {@link #await(long)} at a time; threads
+ * sharing a selector (see {@link #shared(Face)}) use {@link #tryAwait(long)}
+ * instead. The face is only referenced weakly.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class FaceSelector implements Closeable {
+  /**
+   * Set this system property to {@code true} to select on the transport's
+   * channel by default
+   */
+  public static final String SELECT_CHANNEL_PROPERTY = FaceSelector.class.getName() + ".selectChannel";
+  private static final Logger LOGGER = Logger.getLogger(FaceSelector.class.getName());
+  private static final Field NODE = field(Face.class, "node_");
+  private static final Field TRANSPORT = field(Node.class, "transport_");
+  private static final Map<Face, FaceSelector> SHARED = new WeakHashMap<>();
+  private static final ReferenceQueue<Face> COLLECTED = new ReferenceQueue<>();
+  private final FaceReference face;
+  private final boolean selectChannel;
+  private final AtomicReference<Thread> waiter = new AtomicReference<>();
+  private volatile Selector selector;
+  private SelectableChannel registered;
+  private volatile boolean woken = false;
+
+  /**
+   * @param face the face to wait on; its channel is selected only if {@link
+   * #SELECT_CHANNEL_PROPERTY} is set
+   */
+  public FaceSelector(Face face) {
+    this(face, Boolean.getBoolean(SELECT_CHANNEL_PROPERTY));
+  }
+
+  /**
+   * @param face the face to wait on
+   * @param selectChannel true to end waits as soon as bytes arrive on the
+   * transport's channel, where it can be found; false to always poll
+   */
+  public FaceSelector(Face face, boolean selectChannel) {
+    this(face, selectChannel, null);
+  }
+
+  private FaceSelector(Face face, boolean selectChannel, ReferenceQueue<Face> queue) {
+    this.face = new FaceReference(face, this, queue);
+    this.selectChannel = selectChannel;
+  }
+
+  /**
+   * Share one selector per face among callers that wait on a face occasionally
+   * (e.g. synchronous requests), so that each wait does not open, register and
+   * close a selector of its own. Callers must not close the returned selector;
+   * it is closed once the face is garbage-collected.
+   *
+   * @param face the face to wait on
+   * @return the selector shared by all callers for this face
+   */
+  public static FaceSelector shared(Face face) {
+    synchronized (SHARED) {
+      for (Reference<? extends Face> collected; (collected = COLLECTED.poll()) != null; ) {
+        ((FaceReference) collected).selector.closeQuietly();
+      }
+      return SHARED.computeIfAbsent(face, f -> new FaceSelector(f, Boolean.getBoolean(SELECT_CHANNEL_PROPERTY), COLLECTED));
+    }
+  }
+
+  /**
+   * Block until the face's transport has bytes to read, the timeout elapses,
+   * {@link #wakeup()} is called or the thread is interrupted
+   *
+   * @param timeoutMs the maximum time to wait, in milliseconds; must be
+   * positive
+   * @throws IOException if the selector fails
+   */
+  public void await(long timeoutMs) throws IOException {
+    waiter.set(Thread.currentThread());
+    select(timeoutMs);
+  }
+
+  /**
+   * Like {@link #await(long)} unless another thread is already waiting on this
+   * selector, in which case the call returns immediately; that thread processes
+   * the face's events for all
+   *
+   * @param timeoutMs the maximum time to wait, in milliseconds; must be
+   * positive
+   * @return true if this thread waited, false if another thread was waiting
+   * @throws IOException if the selector fails
+   */
+  public boolean tryAwait(long timeoutMs) throws IOException {
+    if (!waiter.compareAndSet(null, Thread.currentThread())) {
+      return false;
+    }
+    select(timeoutMs);
+    return true;
+  }
+
+  /**
+   * Callers must have set themselves as the waiter
+   */
+  private void select(long timeoutMs) throws IOException {
+    try {
+      if (woken) {
+        return;
+      }
+
+      SelectableChannel channel = selectChannel ? channel() : null;
+      if (channel != null && channel.isOpen() && register(channel)) {
+        if (!woken) { // a wakeup may have missed the selector while it was opened
+          selector.select(timeoutMs);
+        }
+        selector.selectedKeys().clear();
+      } else {
+        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+      }
+    } finally {
+      woken = false;
+      waiter.set(null);
+    }
+  }
+
+  /**
+   * End the current or next {@link #await(long)} early; may be called from any
+   * thread
+   */
+  public void wakeup() {
+    woken = true;
+    Selector s = selector;
+    if (s != null) {
+      s.wakeup();
+    }
+    Thread t = waiter.get();
+    if (t != null) {
+      LockSupport.unpark(t);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (selector != null) {
+      selector.close();
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "Failed to close the selector of a collected face.", e);
+    }
+  }
+
+  /**
+   * @return true if the channel is registered for reads with the selector
+   */
+  private boolean register(SelectableChannel channel) throws IOException {
+    if (channel == registered) {
+      return true;
+    }
+    if (channel.isBlocking()) {
+      return false; // not yet configured by the transport; selecting would fail
+    }
+    if (selector == null) {
+      selector = Selector.open();
+    }
+    channel.register(selector, SelectionKey.OP_READ);
+    registered = channel;
+    return true;
+  }
+
+  /**
+   * @return the channel of the face's transport or null if it is unknown or not
+   * yet connected
+   */
+  private SelectableChannel channel() {
+    Transport transport = transport();
+    try {
+      if (transport instanceof TcpTransport && ChannelFields.TCP != null) {
+        return (SelectableChannel) ChannelFields.TCP.get(transport);
+      }
+      if (transport instanceof UdpTransport && ChannelFields.UDP != null) {
+        return (SelectableChannel) ChannelFields.UDP.get(transport);
+      }
+    } catch (IllegalAccessException e) {
+      LOGGER.log(Level.FINE, "Unable to access the transport channel.", e);
+    }
+    return null;
+  }
+
+  /**
+   * @return the face's transport or null if it cannot be accessed
+   */
+  private Transport transport() {
+    Face f = face.get();
+    if (f == null || NODE == null || TRANSPORT == null) {
+      return null;
+    }
+    try {
+      return (Transport) TRANSPORT.get(NODE.get(f));
+    } catch (IllegalAccessException e) {
+      LOGGER.log(Level.FINE, "Unable to access the face transport.", e);
+      return null;
+    }
+  }
+
+  private static Field field(Class<?> type, String name) {
+    try {
+      Field field = type.getDeclaredField(name);
+      field.setAccessible(true);
+      return field;
+    } catch (NoSuchFieldException | RuntimeException e) { // e.g. a SecurityException or the module system's denial
+      LOGGER.log(Level.FINE, "Unable to access field " + name + " of " + type.getName() + "; falling back to timed waits.", e);
+      return null;
+    }
+  }
+
+  /**
+   * Helper class; the transport channel fields are only looked up once a
+   * selector selects on a channel
+   */
+  private static class ChannelFields {
+    static final Field TCP = field(TcpTransport.class, "channel_");
+    static final Field UDP = field(UdpTransport.class, "channel_");
+  }
+
+  /**
+   * Helper data structure; a weak reference to the face that finds its selector
+   * once the face is collected
+   */
+  private static class FaceReference extends WeakReference<Face> {
+    final FaceSelector selector;
+
+    FaceReference(Face face, FaceSelector selector, ReferenceQueue<Face> queue) {
+      super(face, queue);
+      this.selector = selector;
+    }
+  }
+}
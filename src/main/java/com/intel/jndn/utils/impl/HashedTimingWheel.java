@@ -0,0 +1,176 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import java.util.function.Consumer;
+
+/**
+ * Track the expiration of many items with O(1) scheduling and cancellation
+ * (see Varghese and Lauck, "Hashed and Hierarchical Timing Wheels"). Time is
+ * divided into ticks and each item is linked into the bucket of the tick it
+ * expires in; a bucket is shared by all ticks congruent modulo the wheel size,
+ * so items expiring in later rotations stay in place until their tick comes
+ * around.
+ * <p>
+ * The wheel has no thread of its own: callers {@link #advance(long, Consumer)}
+ * it to the current time (e.g. on each table access) and only the buckets of
+ * elapsed ticks are visited. Expiration is accurate to one tick. This class is
+ * not thread-safe; callers must synchronize access.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class HashedTimingWheel<T> {
+  public static final long DEFAULT_TICK_DURATION = 10;
+  public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+  private final long tickDuration;
+  private final Timeout<T>[] buckets;
+  private final int mask;
+  private long currentTick;
+  private int size = 0;
+
+  /**
+   * @param tickDuration the duration of a tick, in milliseconds
+   * @param ticksPerWheel the number of buckets, rounded up to a power of two;
+   * ideally the number of ticks in the longest common lifetime
+   * @param now the current time, in milliseconds
+   */
+  public HashedTimingWheel(long tickDuration, int ticksPerWheel, long now) {
+    if (tickDuration <= 0 || ticksPerWheel <= 0 || ticksPerWheel > 1 << 30) {
+      throw new IllegalArgumentException("Invalid wheel dimensions: " + tickDuration + "ms x " + ticksPerWheel);
+    }
+    int wheelSize = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+    this.tickDuration = tickDuration;
+    this.buckets = newBuckets(Math.max(1, wheelSize));
+    this.mask = buckets.length - 1;
+    this.currentTick = now / tickDuration;
+  }
+
+  /**
+   * Build a wheel of {@link #DEFAULT_TICKS_PER_WHEEL} ticks of
+   * {@link #DEFAULT_TICK_DURATION} milliseconds, starting now
+   */
+  public HashedTimingWheel() {
+    this(DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL, System.currentTimeMillis());
+  }
+
+  /**
+   * @param item the item to expire
+   * @param deadline the time at which the item expires, in milliseconds; past
+   * deadlines expire on the next advance
+   * @return a handle for cancelling the expiration
+   */
+  public Timeout<T> schedule(T item, long deadline) {
+    long tick = Math.max(currentTick + 1, (deadline + tickDuration - 1) / tickDuration);
+    Timeout<T> timeout = new Timeout<>(this, item, tick);
+    int index = (int) (tick & mask);
+    timeout.next = buckets[index];
+    if (timeout.next != null) {
+      timeout.next.previous = timeout;
+    }
+    buckets[index] = timeout;
+    size++;
+    return timeout;
+  }
+
+  /**
+   * Expire all items whose deadline has passed
+   *
+   * @param now the current time, in milliseconds
+   * @param onExpired called with each expired item
+   */
+  public void advance(long now, Consumer<T> onExpired) {
+    long targetTick = now / tickDuration;
+    if (targetTick <= currentTick) {
+      return;
+    }
+
+    // after a full rotation every bucket has been visited; scan each once
+    long lastTick = Math.min(targetTick, currentTick + buckets.length);
+    for (long tick = currentTick + 1; tick <= lastTick && size > 0; tick++) {
+      Timeout<T> timeout = buckets[(int) (tick & mask)];
+      while (timeout != null) {
+        Timeout<T> next = timeout.next;
+        if (timeout.tick <= targetTick) {
+          unlink(timeout);
+          onExpired.accept(timeout.item);
+        }
+        timeout = next;
+      }
+    }
+    currentTick = targetTick;
+  }
+
+  /**
+   * @return the number of scheduled items
+   */
+  public int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Timeout<T>[] newBuckets(int length) {
+    return (Timeout<T>[]) new Timeout<?>[length];
+  }
+
+  private void unlink(Timeout<T> timeout) {
+    int index = (int) (timeout.tick & mask);
+    if (timeout.previous != null) {
+      timeout.previous.next = timeout.next;
+    } else {
+      buckets[index] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.previous = timeout.previous;
+    }
+    timeout.previous = null;
+    timeout.next = null;
+    timeout.wheel = null;
+    size--;
+  }
+
+  /**
+   * Handle to a scheduled item
+   */
+  public static class Timeout<T> {
+    private final T item;
+    private final long tick;
+    private HashedTimingWheel<T> wheel;
+    private Timeout<T> previous;
+    private Timeout<T> next;
+
+    private Timeout(HashedTimingWheel<T> wheel, T item, long tick) {
+      this.wheel = wheel;
+      this.item = item;
+      this.tick = tick;
+    }
+
+    /**
+     * @return the scheduled item
+     */
+    public T item() {
+      return item;
+    }
+
+    /**
+     * Remove the item from the wheel without expiring it; has no effect if the
+     * item already expired or was cancelled
+     */
+    public void cancel() {
+      if (wheel != null) {
+        wheel.unlink(this);
+      }
+    }
+  }
+}
@@ -16,126 +16,422 @@ package com.intel.jndn.utils.impl;
 
 import com.intel.jndn.utils.ContentStore;
 import com.intel.jndn.utils.NameTree;
+import com.intel.jndn.utils.ProcessingStage;
+import com.intel.jndn.utils.ProcessingStageException;
+import com.intel.jndn.utils.SortedNameTree;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
 import net.named_data.jndn.Name;
 import net.named_data.jndn.util.Blob;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * TODO must bound the size of the content store
+ * Store content in a {@link ConcurrentNameTree}, bounded by a number of entries
+ * and a budget of content bytes. When a bound is exceeded, entries are evicted
+ * in insertion order ({@link Eviction#FIFO}) or least-recently-retrieved order
+ * ({@link Eviction#LRU}); tree nodes left without content or children are
+ * pruned so the tree only tracks live content. Hits, misses and evictions are
+ * counted for monitoring.
+ * <p>
+ * Content is segmented, run through the post-processing stages (e.g. a
+ * {@link com.intel.jndn.utils.processing.impl.SigningStage}) and encoded the
+ * first time it is pushed; the encoded segments are cached with the entry, and
+ * count towards the byte budget, so later pushes replay them with
+ * {@link Face#send(Blob)} without re-signing or re-encoding.
+ * <p>
+ * This class is thread-safe: lookups and pushes read the tree without locking
+ * so they never wait for publishers, and writes are serialized on the store.
+ * With {@link Eviction#LRU}, retrievals are recorded in a bounded lock-free
+ * buffer that writes replay before evicting; if more than
+ * {@link #MAX_PENDING_RETRIEVALS} retrievals happen between two writes, the
+ * oldest of them are forgotten, so the eviction order is approximate.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
 public class InMemoryContentStore implements ContentStore {
   private static final Logger LOGGER = Logger.getLogger(InMemoryContentStore.class.getName());
-  private final NameTree<Blob> store;
+  /**
+   * The maximum number of LRU retrievals recorded between two writes
+   */
+  public static final int MAX_PENDING_RETRIEVALS = 1024;
+  private final SortedNameTree<Entry> store;
   private final Data template;
+  private final int maxEntries;
+  private final long maxBytes;
+  private final boolean lru;
+  private final LinkedHashMap<Name, Entry> entries;
+  private final Queue<Entry> retrieved = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingRetrievals = new AtomicInteger();
+  private final List<ProcessingStage<Data, Data>> pipeline = new CopyOnWriteArrayList<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private volatile int generation = 0;
+  private long bytes = 0;
+  private long evictions = 0;
 
-  public InMemoryContentStore(int freshnessMs) {
+  /**
+   * The order in which entries are evicted once the store is full
+   */
+  public enum Eviction {
+    /**
+     * Evict the earliest inserted entry
+     */
+    FIFO,
+    /**
+     * Evict the least recently retrieved (or inserted) entry
+     */
+    LRU
+  }
+
+  /**
+   * @param freshnessMs the freshness period of the data packets pushed
+   * @param maxEntries the maximum number of entries to store
+   * @param maxBytes the maximum number of bytes to store, including cached encodings
+   * @param eviction the order in which to evict entries
+   */
+  public InMemoryContentStore(int freshnessMs, int maxEntries, long maxBytes, Eviction eviction) {
+    if (maxEntries <= 0 || maxBytes < 0) {
+      throw new IllegalArgumentException("Invalid content store bounds: " + maxEntries + " entries, " + maxBytes + " bytes");
+    }
     this.template = new Data();
     this.template.getMetaInfo().setFreshnessPeriod(freshnessMs);
-    this.store = DefaultNameTree.newRootTree();
+    this.store = ConcurrentNameTree.newRootTree();
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.lru = eviction == Eviction.LRU;
+    this.entries = new LinkedHashMap<>(16, 0.75f, lru);
   }
 
-  @Override
-  public void put(Name name, Blob data) {
-    store.insert(name, data);
+  /**
+   * Build an unbounded content store; see {@link #InMemoryContentStore(int, int, long, Eviction)}
+   *
+   * @param freshnessMs the freshness period of the data packets pushed
+   */
+  public InMemoryContentStore(int freshnessMs) {
+    this(freshnessMs, Integer.MAX_VALUE, Long.MAX_VALUE, Eviction.FIFO);
   }
 
   @Override
-  public Optional<Blob> get(Interest interest) {
-    Optional<NameTree<Blob>> leaf = getWithSelectors(interest);
-    return leaf.isPresent() ? leaf.get().content() : Optional.empty();
-  }
-
-  private Optional<NameTree<Blob>> getWithSelectors(Interest interest) {
-    Optional<NameTree<Blob>> possibleBlob = store.find(interest.getName());
-    if (possibleBlob.isPresent() && hasSelectors(interest)) {
-      List<NameTree<Blob>> children = new ArrayList<>(possibleBlob.get().children());
-      if (children.isEmpty()) {
-        return Optional.empty();
-      } else if (children.size() == 1) {
-        return Optional.of(children.get(0));
-      } else if (isRightMost(interest)) {
-        Collections.sort(children, (a, b) -> b.lastComponent().compare(a.lastComponent()));
-        return Optional.of(children.get(0));
-      } else if (isLeftMost(interest)) {
-        Collections.sort(children, (a, b) -> a.lastComponent().compare(b.lastComponent()));
-        return Optional.of(children.get(0));
-      } else {
-        // TODO max/min suffix components and excludes
-        LOGGER.warning("The interest requested has selectors not yet implemented; returning empty content");
-        return Optional.empty();
+  public synchronized void put(Name name, Blob data) {
+    replayRetrievals(); // earlier retrievals precede this insertion
+    Name key = new Name(name);
+    Entry replaced = entries.remove(key);
+    if (replaced != null) {
+      bytes -= replaced.size();
+    }
+
+    Entry entry = new Entry(key, data);
+    store.insert(key, entry);
+    entries.put(key, entry);
+    bytes += entry.size();
+    evict();
+  }
+
+  /**
+   * Add a stage to run on each segment before it is encoded and cached, e.g. a
+   * {@link com.intel.jndn.utils.processing.impl.SigningStage}; previously cached
+   * encodings are discarded
+   *
+   * @param stage a {@link Data} processing stage
+   */
+  public synchronized void addPostProcessingStage(ProcessingStage<Data, Data> stage) {
+    pipeline.add(stage);
+    generation++;
+    for (Entry entry : entries.values()) {
+      bytes -= entry.size();
+      entry.encoded = null;
+      bytes += entry.size();
+    }
+  }
+
+  /**
+   * Evict the eldest entries until the store is within its bounds
+   */
+  private void evict() {
+    replayRetrievals();
+    Iterator<Map.Entry<Name, Entry>> eldest = entries.entrySet().iterator();
+    while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+      Map.Entry<Name, Entry> entry = eldest.next();
+      eldest.remove();
+      bytes -= entry.getValue().size();
+      evictions++;
+      store.delete(entry.getKey()); // also prunes the nodes left empty
+      LOGGER.log(Level.FINER, "Evicted content: {0}", entry.getKey());
+    }
+  }
+
+  /**
+   * Move the entries retrieved since the last write to the most recently used end of the eviction order, skipping
+   * those replaced or evicted in the meantime
+   */
+  private void replayRetrievals() {
+    Entry entry;
+    while ((entry = retrieved.poll()) != null) {
+      pendingRetrievals.decrementAndGet();
+      if (lookup(entry.name) == entry) {
+        entries.get(entry.name); // an access-ordered map moves the entry to its end
       }
     }
-    return possibleBlob;
   }
 
-  private static boolean hasSelectors(Interest interest) {
-    return interest.getChildSelector() != -1 || interest.getExclude().size() > 0;
+  /**
+   * Select the stored content satisfying the Interest: the leftmost match in canonical order beneath the Interest name
+   * or, with {@link Interest#CHILD_SELECTOR_RIGHT}, the leftmost match beneath the rightmost child with any match.
+   * Subtrees are skipped as soon as they cannot match: children excluded by the Interest's {@link
+   * net.named_data.jndn.Exclude}, and nodes deeper than its maximum suffix components.
+   *
+   * @return the selected entry or null if none match
+   */
+  private Entry getWithSelectors(Interest interest) {
+    Name name = interest.getName();
+    SortedNameTree<Entry> prefix = store.lookup(name, name.size());
+    NameTree<Entry> selected = prefix == null ? null : select(prefix, interest, 0);
+    return selected == null ? null : selected.content().orElse(null);
+  }
+
+  /**
+   * @param node the subtree to search
+   * @param interest the Interest to satisfy
+   * @param depth the number of components of the node's name following the Interest name
+   * @return the first matching node or null
+   */
+  private static NameTree<Entry> select(SortedNameTree<Entry> node, Interest interest, int depth) {
+    // a data name has one more component than its node's name: the implicit digest
+    int suffixComponents = depth + 1;
+    int maxSuffixComponents = interest.getMaxSuffixComponents();
+    if (maxSuffixComponents >= 0 && suffixComponents > maxSuffixComponents) {
+      return null;
+    }
+
+    boolean accept = node.content().isPresent() && suffixComponents >= interest.getMinSuffixComponents();
+    boolean rightmost = depth == 0 && isRightMost(interest);
+    if (accept && !rightmost) {
+      return node;
+    }
+
+    boolean canDescend = maxSuffixComponents < 0 || suffixComponents < maxSuffixComponents;
+    if (canDescend) {
+      for (SortedNameTree<Entry> child : rightmost ? node.descendingChildren() : node.ascendingChildren()) {
+        if (depth == 0 && interest.getExclude().size() > 0 && interest.getExclude().matches(child.lastComponent())) {
+          continue;
+        }
+        NameTree<Entry> selected = select(child, interest, depth + 1);
+        if (selected != null) {
+          return selected;
+        }
+      }
+    }
+
+    return accept ? node : null;
   }
 
   private static boolean isRightMost(Interest interest) {
     return interest.getChildSelector() == Interest.CHILD_SELECTOR_RIGHT;
   }
 
-  private static boolean isLeftMost(Interest interest) {
-    return interest.getChildSelector() == Interest.CHILD_SELECTOR_LEFT;
+  /**
+   * @return the entry stored under exactly this name or null
+   */
+  private Entry lookup(Name name) {
+    NameTree<Entry> node = store.lookup(name, name.size());
+    return node == null ? null : node.content().orElse(null);
   }
 
   @Override
   public boolean has(Name name) {
-    return store.find(name).isPresent();
+    return lookup(name) != null;
   }
 
   @Override
   public boolean has(Interest interest) {
-    return get(interest).isPresent();
+    return getWithSelectors(interest) != null;
   }
 
   @Override
   public Optional<Blob> get(Name name) {
-    Optional<NameTree<Blob>> tree = store.find(name);
-    return tree.isPresent() ? tree.get().content() : Optional.empty();
+    Entry entry = retrieve(lookup(name));
+    return entry == null ? Optional.empty() : Optional.of(entry.content);
+  }
+
+  @Override
+  public Optional<Blob> get(Interest interest) {
+    Entry entry = retrieve(getWithSelectors(interest));
+    return entry == null ? Optional.empty() : Optional.of(entry.content);
   }
 
   @Override
   public void push(Face face, Name name) throws IOException {
-    Optional<Blob> blob = get(name);
-    if (blob.isPresent()) {
-      Data t = new Data(template);
-      t.setName(name);
-      ByteArrayInputStream b = new ByteArrayInputStream(blob.get().getImmutableArray());
-      for (Data d : SegmentationHelper.segment(t, b)) {
-        face.putData(d);
-      }
+    Entry entry = retrieve(lookup(name));
+    if (entry != null) {
+      pushSegments(face, entry);
     }
   }
 
   @Override
   public void push(Face face, Interest interest) throws IOException {
-    Optional<NameTree<Blob>> leaf = getWithSelectors(interest);
-    if (leaf.isPresent() && leaf.get().content().isPresent()) {
-      Data t = new Data(template);
-      t.setName(leaf.get().fullName());
-      ByteArrayInputStream b = new ByteArrayInputStream(leaf.get().content().get().getImmutableArray());
-      for (Data d : SegmentationHelper.segment(t, b)) {
-        face.putData(d);
+    Entry entry = retrieve(getWithSelectors(interest));
+    if (entry != null) {
+      pushSegments(face, entry);
+    }
+  }
+
+  /**
+   * Count a retrieval and, for LRU eviction, record it for the next write to replay; this never locks the store
+   *
+   * @param entry the entry found, may be null
+   * @return the entry
+   */
+  private Entry retrieve(Entry entry) {
+    if (entry == null) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+      if (lru) {
+        retrieved.offer(entry);
+        if (pendingRetrievals.incrementAndGet() > MAX_PENDING_RETRIEVALS && retrieved.poll() != null) {
+          pendingRetrievals.decrementAndGet(); // forget the oldest retrieval
+        }
       }
     }
+    return entry;
+  }
+
+  /**
+   * Send the encoded segments of the entry, encoding them on first use; the content is segmented without copying
+   * (each segment shares the stored buffer)
+   */
+  private void pushSegments(Face face, Entry entry) throws IOException {
+    List<Blob> encoded = entry.encoded;
+    if (encoded == null) {
+      int encodedGeneration = generation;
+      encoded = encode(entry);
+      cache(entry, encoded, encodedGeneration);
+    }
+
+    for (Blob segment : encoded) {
+      face.send(segment);
+    }
+  }
+
+  private List<Blob> encode(Entry entry) throws IOException {
+    Data t = new Data(template);
+    t.setName(entry.name);
+    ByteBuffer content = entry.content.isNull() ? ByteBuffer.allocate(0) : entry.content.buf();
+    Iterator<Data> segments = SegmentationHelper.segmentIterator(t, content, SegmentationHelper.DEFAULT_SEGMENT_SIZE);
+    List<Blob> encoded = new ArrayList<>();
+    while (segments.hasNext()) {
+      encoded.add(process(segments.next()).wireEncode());
+    }
+    return Collections.unmodifiableList(encoded);
+  }
+
+  /**
+   * Cache the encoded segments unless the entry was replaced, evicted or re-encoded, or the processing stages changed
+   * in the meantime
+   */
+  private synchronized void cache(Entry entry, List<Blob> encoded, int encodedGeneration) {
+    if (entry.encoded == null && encodedGeneration == generation && lookup(entry.name) == entry) {
+      bytes -= entry.size();
+      entry.encoded = encoded;
+      bytes += entry.size();
+      evict(); // the cached encodings may exceed the byte budget
+    }
+  }
+
+  private Data process(Data segment) throws IOException {
+    try {
+      for (ProcessingStage<Data, Data> stage : pipeline) {
+        segment = stage.process(segment);
+      }
+      return segment;
+    } catch (ProcessingStageException e) {
+      throw new IOException("Failed to process segment: " + segment.getName().toUri(), e);
+    }
   }
 
   @Override
-  public void clear() {
+  public synchronized void clear() {
     store.clear();
+    entries.clear();
+    retrieved.clear();
+    pendingRetrievals.set(0);
+    bytes = 0;
+  }
+
+  /**
+   * @return the number of entries stored
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the number of content bytes stored
+   */
+  public synchronized long bytes() {
+    return bytes;
+  }
+
+  /**
+   * @return the number of retrievals that found content
+   */
+  public long hits() {
+    return hits.get();
+  }
+
+  /**
+   * @return the number of retrievals that found no content
+   */
+  public long misses() {
+    return misses.get();
+  }
+
+  /**
+   * @return the number of entries evicted to stay within bounds
+   */
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  /**
+   * Helper data structure; stored content and its cached encoded segments
+   */
+  private static class Entry {
+    final Name name;
+    final Blob content;
+    volatile List<Blob> encoded;
+
+    Entry(Name name, Blob content) {
+      this.name = name;
+      this.content = content;
+    }
+
+    long size() {
+      long size = content.size();
+      List<Blob> segments = encoded;
+      if (segments != null) {
+        for (Blob segment : segments) {
+          size += segment.size();
+        }
+      }
+      return size;
+    }
   }
 }
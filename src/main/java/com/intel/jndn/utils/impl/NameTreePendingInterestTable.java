@@ -0,0 +1,268 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.PendingInterestTable;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index pending interests in a tree of name components so that matching a name
+ * only visits the entries stored at the name's prefixes instead of the whole
+ * table. Children are kept in canonical order, so {@link #has(Interest)} with a
+ * child selector descends from the Interest name through the first (or last)
+ * child not excluded, and only backtracks past subtrees whose entries fail the
+ * Interest's suffix limits. Matching uses {@link Interest#matchesName(Name)} so
+ * exclusions and suffix limits are honored.
+ * <p>
+ * Entries expire once their Interest lifetime has passed (or
+ * {@link #DEFAULT_INTEREST_LIFETIME} if none is set); expirations are tracked
+ * in a {@link HashedTimingWheel} advanced on each access, so no timer threads
+ * are needed. If the table is full, the oldest entry is evicted first. Empty
+ * tree nodes are removed as their entries are extracted or expire. This class
+ * is thread-safe.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class NameTreePendingInterestTable implements PendingInterestTable {
+  public static final double DEFAULT_INTEREST_LIFETIME = 4000.0;
+  private static final Logger LOGGER = Logger.getLogger(NameTreePendingInterestTable.class.getName());
+  private final int maxSize;
+  private final Node root = new Node(null, null);
+  private final Set<Entry> entries = new LinkedHashSet<>();
+  private final HashedTimingWheel<Entry> expirations;
+
+  /**
+   * @param maxSize the maximum number of pending interests to keep
+   */
+  public NameTreePendingInterestTable(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("The table must hold at least one interest");
+    }
+    this.maxSize = maxSize;
+    this.expirations = new HashedTimingWheel<>();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void add(Interest interest) {
+    LOGGER.log(Level.FINE, "Adding pending interest: {0}", interest.toUri());
+    long now = System.currentTimeMillis();
+    expire(now);
+    if (entries.size() >= maxSize) {
+      remove(entries.iterator().next());
+    }
+
+    Node node = root;
+    Name name = interest.getName();
+    for (int i = 0; i < name.size(); i++) {
+      node = node.child(name.get(i));
+    }
+
+    double lifetime = interest.getInterestLifetimeMilliseconds();
+    Entry entry = new Entry(interest, node);
+    entry.timeout = expirations.schedule(entry, now + (long) (lifetime < 0 ? DEFAULT_INTEREST_LIFETIME : lifetime));
+    node.entries.add(entry);
+    entries.add(entry);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized boolean has(Interest interest) {
+    if (interest.getChildSelector() == -1) {
+      return has(interest.getName());
+    }
+
+    expire(System.currentTimeMillis());
+    Node prefix = find(interest.getName());
+    if (prefix == null) {
+      return false;
+    }
+    if (!prefix.entries.isEmpty() && interest.matchesName(prefix.entries.get(0).interest.getName())) {
+      return true;
+    }
+    return hasDescendantMatching(prefix, interest);
+  }
+
+  /**
+   * @param name the name to match against
+   * @return true if an entry with exactly this name is pending
+   */
+  public synchronized boolean has(Name name) {
+    expire(System.currentTimeMillis());
+    Node node = find(name);
+    return node != null && !node.entries.isEmpty();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized Collection<Interest> extract(Name name) {
+    expire(System.currentTimeMillis());
+    List<Interest> extracted = new ArrayList<>();
+    Node node = root;
+    Node last = null;
+    for (int i = 0; node != null; i++) {
+      Iterator<Entry> iterator = node.entries.iterator();
+      while (iterator.hasNext()) {
+        Entry entry = iterator.next();
+        if (entry.interest.matchesName(name)) {
+          iterator.remove();
+          entries.remove(entry);
+          entry.timeout.cancel();
+          extracted.add(entry.interest);
+        }
+      }
+      last = node;
+      node = i < name.size() ? node.children.get(name.get(i)) : null;
+    }
+
+    // only the deepest visited node can be a leaf; pruning it removes any emptied ancestors
+    prune(last);
+    return extracted;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized boolean remove(Interest interest) {
+    expire(System.currentTimeMillis());
+    Node node = find(interest.getName());
+    if (node != null) {
+      for (Entry entry : node.entries) {
+        if (entry.interest == interest) {
+          remove(entry);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the number of pending interests
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private Node find(Name name) {
+    Node node = root;
+    for (int i = 0; i < name.size() && node != null; i++) {
+      node = node.children.get(name.get(i));
+    }
+    return node;
+  }
+
+  private boolean hasDescendantMatching(Node prefix, Interest interest) {
+    boolean rightmost = interest.getChildSelector() == Interest.CHILD_SELECTOR_RIGHT;
+    for (Node child : (rightmost ? prefix.children.descendingMap() : prefix.children).values()) {
+      if (!interest.getExclude().matches(child.component) && hasDescendantMatching(child, interest, 1, rightmost)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Depth-first in the order of the child selector; every node has entries or
+   * children (see {@link #prune(Node)}), so without suffix limits the first
+   * descent succeeds
+   */
+  private static boolean hasDescendantMatching(Node node, Interest interest, int depth, boolean rightmost) {
+    if (!node.entries.isEmpty() && interest.matchesName(node.entries.get(0).interest.getName())) {
+      return true;
+    }
+    int maxSuffixComponents = interest.getMaxSuffixComponents();
+    if (maxSuffixComponents >= 0 && depth + 1 >= maxSuffixComponents) {
+      return false; // deeper names have too many components, counting the implicit digest
+    }
+    for (Node child : (rightmost ? node.children.descendingMap() : node.children).values()) {
+      if (hasDescendantMatching(child, interest, depth + 1, rightmost)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void expire(long now) {
+    expirations.advance(now, this::remove);
+  }
+
+  private void remove(Entry entry) {
+    LOGGER.log(Level.FINER, "Removing pending interest: {0}", entry.interest.toUri());
+    entry.timeout.cancel();
+    entries.remove(entry);
+    entry.node.entries.remove(entry);
+    prune(entry.node);
+  }
+
+  private static void prune(Node node) {
+    while (node != null && node.parent != null && node.entries.isEmpty() && node.children.isEmpty()) {
+      node.parent.children.remove(node.component);
+      node = node.parent;
+    }
+  }
+
+  /**
+   * Helper data structure; a node in the tree of pending names
+   */
+  private static class Node {
+    final Node parent;
+    final Name.Component component;
+    final NavigableMap<Name.Component, Node> children = new TreeMap<>(Name.Component::compare);
+    final List<Entry> entries = new ArrayList<>(1);
+
+    Node(Node parent, Name.Component component) {
+      this.parent = parent;
+      this.component = component;
+    }
+
+    Node child(Name.Component c) {
+      return children.computeIfAbsent(c, k -> new Node(this, k));
+    }
+  }
+
+  /**
+   * Helper data structure; a pending interest and its scheduled expiration
+   */
+  private static class Entry {
+    final Interest interest;
+    final Node node;
+    HashedTimingWheel.Timeout<Entry> timeout;
+
+    Entry(Interest interest, Node node) {
+      this.interest = interest;
+      this.node = node;
+    }
+  }
+}
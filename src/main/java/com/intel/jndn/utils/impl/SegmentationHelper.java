@@ -20,11 +20,16 @@ import net.named_data.jndn.encoding.EncodingException;
 import net.named_data.jndn.util.Blob;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Helper methods for reading and writing segmented NDN packets. See <a
@@ -34,6 +39,9 @@ import java.util.List;
  * For segmentation of streams: the current use of the default segment size of 4096
  * (only for {@link #segment(net.named_data.jndn.Data, java.io.InputStream)} is based on several assumptions: NDN packet
  * size was limited to 8000 at the time this was written and the signature size is unknown.
+ * <p>
+ * The {@code segmentIterator} methods produce segments lazily, one at a time, so that large content can be segmented
+ * with memory bounded by a few segments rather than by the size of the content.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
@@ -41,6 +49,7 @@ public class SegmentationHelper {
 
   public static final int DEFAULT_SEGMENT_SIZE = 4096;
   private static final byte NDN_SEGMENT_MARKER = 0x00;
+  private static final Name.Component NO_FINAL_BLOCK_ID = new Name.Component();
 
   private SegmentationHelper() {
     // do not instantiate this class
@@ -99,35 +108,78 @@ public class SegmentationHelper {
 
   /**
    * Segment a stream of bytes into a list of Data packets; this must read all the bytes first in order to determine the
-   * end segment for FinalBlockId. TODO this could be smarter and only add segments if necessary
+   * end segment for FinalBlockId. Prefer one of the {@code segmentIterator} methods for large content.
    *
    * @param template the {@link Data} packet to use for the segment {@link Name}, {@link net.named_data.jndn.MetaInfo},
    * etc.
    * @param bytes an {@link InputStream} to the bytes to segment
+   * @param segmentSize the maximum number of content bytes per segment
    * @return a list of segmented {@link Data} packets
    * @throws IOException if the stream fails
    */
   public static List<Data> segment(Data template, InputStream bytes, int segmentSize) throws IOException {
     List<Data> segments = new ArrayList<>();
-    byte[] readBytes = readAll(bytes);
-    int numBytes = readBytes.length;
-    int numPackets = (int) Math.ceil((double) numBytes / segmentSize);
-    ByteBuffer buffer = ByteBuffer.wrap(readBytes, 0, numBytes);
-    Name.Component lastSegment = Name.Component.fromNumberWithMarker((long) numPackets - 1, NDN_SEGMENT_MARKER);
-
-    for (int i = 0; i < numPackets; i++) {
-      Data segment = new Data(template);
-      segment.getName().appendSegment(i);
-      segment.getMetaInfo().setFinalBlockId(lastSegment);
-      byte[] content = new byte[Math.min(segmentSize, buffer.remaining())];
-      buffer.get(content);
-      segment.setContent(new Blob(content));
-      segments.add(segment);
+    try {
+      segmentIterator(template, bytes, segmentSize).forEachRemaining(segments::add);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
     }
 
+    if (!segments.isEmpty()) {
+      Name.Component lastSegment = Name.Component.fromNumberWithMarker((long) segments.size() - 1, NDN_SEGMENT_MARKER);
+      for (Data segment : segments) {
+        segment.getMetaInfo().setFinalBlockId(lastSegment);
+      }
+    }
     return segments;
   }
 
+  /**
+   * Lazily segment a stream of unknown length; bytes are read in bulk as segments are requested and the stream is
+   * closed once exhausted. Because the length is unknown, only the last segment carries a FinalBlockId; the iterator
+   * reads one segment ahead to detect it.
+   *
+   * @param template the {@link Data} packet to use for the segment {@link Name}, {@link net.named_data.jndn.MetaInfo},
+   * etc.
+   * @param bytes an {@link InputStream} to the bytes to segment
+   * @param segmentSize the maximum number of content bytes per segment
+   * @return an iterator of segmented {@link Data} packets; stream failures are thrown as {@link UncheckedIOException}
+   */
+  public static Iterator<Data> segmentIterator(Data template, InputStream bytes, int segmentSize) {
+    return new StreamSegmentIterator(template, bytes, -1, segmentSize);
+  }
+
+  /**
+   * Lazily segment a stream of known length; every segment carries the FinalBlockId computed from the length and
+   * only one segment is held in memory at a time. As for a stream of unknown length, the stream is closed once the
+   * last segment is read, even if it holds more bytes than the given length.
+   *
+   * @param template the {@link Data} packet to use for the segment {@link Name}, {@link net.named_data.jndn.MetaInfo},
+   * etc.
+   * @param bytes an {@link InputStream} to the bytes to segment
+   * @param length the number of bytes to read from the stream
+   * @param segmentSize the maximum number of content bytes per segment
+   * @return an iterator of segmented {@link Data} packets; stream failures (including a stream shorter than the
+   * given length) are thrown as {@link UncheckedIOException}
+   */
+  public static Iterator<Data> segmentIterator(Data template, InputStream bytes, long length, int segmentSize) {
+    return new StreamSegmentIterator(template, bytes, length, segmentSize);
+  }
+
+  /**
+   * Lazily segment the remaining bytes of a buffer; every segment carries the FinalBlockId and shares the buffer's
+   * memory (no bytes are copied), so the buffer must not be modified while the segments are in use.
+   *
+   * @param template the {@link Data} packet to use for the segment {@link Name}, {@link net.named_data.jndn.MetaInfo},
+   * etc.
+   * @param bytes the bytes to segment, from position to limit; the buffer's position is not modified
+   * @param segmentSize the maximum number of content bytes per segment
+   * @return an iterator of segmented {@link Data} packets
+   */
+  public static Iterator<Data> segmentIterator(Data template, ByteBuffer bytes, int segmentSize) {
+    return new BufferSegmentIterator(template, bytes, segmentSize);
+  }
+
   /**
    * Read all of the bytes in an input stream.
    *
@@ -137,13 +189,182 @@ public class SegmentationHelper {
    */
   public static byte[] readAll(InputStream bytes) throws IOException {
     ByteArrayOutputStream builder = new ByteArrayOutputStream();
-    int read = bytes.read();
+    byte[] buffer = new byte[DEFAULT_SEGMENT_SIZE];
+    int read = bytes.read(buffer);
     while (read != -1) {
-      builder.write(read);
-      read = bytes.read();
+      builder.write(buffer, 0, read);
+      read = bytes.read(buffer);
     }
     builder.flush();
     bytes.close();
     return builder.toByteArray();
   }
+
+  /**
+   * @param numBytes the number of bytes to segment
+   * @param segmentSize the maximum number of content bytes per segment
+   * @return the number of segments needed
+   */
+  private static long countSegments(long numBytes, int segmentSize) {
+    return (numBytes + segmentSize - 1) / segmentSize;
+  }
+
+  private static Data buildSegment(Data template, long segmentNumber, Name.Component finalBlockId, Blob content) {
+    Data segment = new Data(template);
+    segment.getName().appendSegment(segmentNumber);
+    segment.getMetaInfo().setFinalBlockId(finalBlockId);
+    segment.setContent(content);
+    return segment;
+  }
+
+  /**
+   * Helper class for lazily segmenting streams; if the length is unknown (negative), the iterator keeps the next
+   * chunk read ahead so that it can mark the last segment. In both cases the stream is closed after the last segment
+   * is read.
+   */
+  private static class StreamSegmentIterator implements Iterator<Data> {
+    private final Data template;
+    private final InputStream bytes;
+    private final int segmentSize;
+    private final long numSegments;
+    private final Name.Component lastSegment;
+    private long remaining;
+    private long segmentNumber = 0;
+    private byte[] next;
+    private boolean exhausted = false;
+    private boolean closed = false;
+
+    StreamSegmentIterator(Data template, InputStream bytes, long length, int segmentSize) {
+      if (segmentSize <= 0) {
+        throw new IllegalArgumentException("Segment size must be positive");
+      }
+      this.template = template;
+      this.bytes = bytes;
+      this.segmentSize = segmentSize;
+      this.remaining = length;
+      this.numSegments = length < 0 ? -1 : countSegments(length, segmentSize);
+      this.lastSegment = numSegments > 0 ? Name.Component.fromNumberWithMarker(numSegments - 1, NDN_SEGMENT_MARKER) : NO_FINAL_BLOCK_ID;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (numSegments >= 0) {
+        if (segmentNumber < numSegments) {
+          return true;
+        }
+        close(); // e.g. nothing to read for a length of zero
+        return false;
+      }
+      if (next == null && !exhausted) {
+        next = readChunk(segmentSize);
+      }
+      return next != null;
+    }
+
+    @Override
+    public Data next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      if (numSegments >= 0) {
+        int size = (int) Math.min(segmentSize, remaining);
+        byte[] content = readChunk(size);
+        if (content == null || content.length < size) {
+          throw new UncheckedIOException(new EOFException("Stream ended before the expected length"));
+        }
+        remaining -= size;
+        Data segment = buildSegment(template, segmentNumber++, lastSegment, new Blob(content, false));
+        if (segmentNumber == numSegments) {
+          close();
+        }
+        return segment;
+      }
+
+      byte[] content = next;
+      next = exhausted ? null : readChunk(segmentSize);
+      Name.Component finalBlockId = next == null ? Name.Component.fromNumberWithMarker(segmentNumber, NDN_SEGMENT_MARKER) : NO_FINAL_BLOCK_ID;
+      return buildSegment(template, segmentNumber++, finalBlockId, new Blob(content, false));
+    }
+
+    /**
+     * Fill a chunk with bulk reads; a short chunk means the stream is exhausted
+     *
+     * @param size the number of bytes to read
+     * @return the chunk read or null if no bytes remain
+     */
+    private byte[] readChunk(int size) {
+      try {
+        byte[] chunk = new byte[size];
+        int filled = 0;
+        while (filled < size) {
+          int read = bytes.read(chunk, filled, size - filled);
+          if (read == -1) {
+            exhausted = true;
+            close();
+            break;
+          }
+          filled += read;
+        }
+        if (filled == 0) {
+          return null;
+        }
+        return filled == size ? chunk : Arrays.copyOf(chunk, filled);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        bytes.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Helper class for lazily segmenting buffers using slices of the original buffer
+   */
+  private static class BufferSegmentIterator implements Iterator<Data> {
+    private final Data template;
+    private final ByteBuffer bytes;
+    private final int segmentSize;
+    private final long numSegments;
+    private final Name.Component lastSegment;
+    private long segmentNumber = 0;
+
+    BufferSegmentIterator(Data template, ByteBuffer bytes, int segmentSize) {
+      if (segmentSize <= 0) {
+        throw new IllegalArgumentException("Segment size must be positive");
+      }
+      this.template = template;
+      this.bytes = bytes.duplicate();
+      this.segmentSize = segmentSize;
+      this.numSegments = countSegments(bytes.remaining(), segmentSize);
+      this.lastSegment = numSegments > 0 ? Name.Component.fromNumberWithMarker(numSegments - 1, NDN_SEGMENT_MARKER) : NO_FINAL_BLOCK_ID;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return segmentNumber < numSegments;
+    }
+
+    @Override
+    public Data next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      ByteBuffer slice = bytes.slice();
+      slice.limit(Math.min(segmentSize, slice.remaining()));
+      bytes.position(bytes.position() + slice.limit());
+      return buildSegment(template, segmentNumber++, lastSegment, new Blob(slice, false));
+    }
+  }
 }
@@ -15,8 +15,10 @@
 package com.intel.jndn.utils.pubsub;
 
 import com.intel.jndn.utils.ContentStore;
+import com.intel.jndn.utils.FaceEventLoop;
 import com.intel.jndn.utils.PendingInterestTable;
 import com.intel.jndn.utils.Publisher;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
@@ -28,8 +30,10 @@ import net.named_data.jndn.security.SecurityException;
 import net.named_data.jndn.util.Blob;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
@@ -38,6 +42,9 @@ import java.util.logging.Logger;
 
 /**
  * TODO look at thread safety
+ * <p>
+ * When a {@link FaceEventLoop} drives the face (see {@link DefaultFaceEventLoop#driving(Face)}), publishing, opening
+ * and closing submit their face IO to the loop instead of using the face from the calling thread.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
@@ -94,7 +101,12 @@ class NdnPublisher implements Publisher, OnInterestCallback {
     OnRegistration onRegistration = new OnRegistration(future);
 
     try {
-      registrationId = face.registerPrefix(prefix, this, (OnRegisterFailed) onRegistration, onRegistration);
+      FaceEventLoop loop = DefaultFaceEventLoop.driving(face);
+      if (loop != null && !loop.inEventLoop()) {
+        registrationId = loop.submit(() -> face.registerPrefix(prefix, this, (OnRegisterFailed) onRegistration, onRegistration)).get(10, TimeUnit.SECONDS);
+      } else {
+        registrationId = face.registerPrefix(prefix, this, (OnRegisterFailed) onRegistration, onRegistration);
+      }
       // assumes face.processEvents is driven concurrently elsewhere
       future.get(10, TimeUnit.SECONDS);
       announcementService.announceEntrance(publisherId);
@@ -112,7 +124,8 @@ class NdnPublisher implements Publisher, OnInterestCallback {
   @Override
   public synchronized void close() throws IOException {
     if (opened) {
-      face.removeRegisteredPrefix(registrationId);
+      long id = registrationId;
+      onFace(() -> face.removeRegisteredPrefix(id));
       contentStore.clear();
       announcementService.announceExit(publisherId);
     }
@@ -128,9 +141,11 @@ class NdnPublisher implements Publisher, OnInterestCallback {
     contentStore.put(name, PubSubNamespace.toResponse(null, message));
     LOGGER.log(Level.INFO, "Published message {0} to content store: {1}", new Object[]{id, name});
 
-    if (pendingInterestTable.has(new Interest(name))) {
-      sendContent(face, name);
-      // TODO extract satisfied interests
+    // one data packet satisfies every matching pending interest (e.g. subscribers asking for the latest message)
+    Collection<Interest> satisfied = pendingInterestTable.extract(name);
+    if (!satisfied.isEmpty()) {
+      LOGGER.log(Level.FINE, "Satisfying {0} pending interests with message: {1}", new Object[]{satisfied.size(), name});
+      onFace(() -> sendContent(face, name));
     }
   }
 
@@ -144,8 +159,29 @@ class NdnPublisher implements Publisher, OnInterestCallback {
         sendContent(face, interest);
       } else {
         pendingInterestTable.add(interest);
+        // a message published between the check and the add did not see this entry; answer it here instead
+        if (contentStore.has(interest)) {
+          sendContent(face, interest);
+          pendingInterestTable.remove(interest);
+        }
+      }
+    }
+  }
+
+  /**
+   * Run the face IO on the loop driving the face, if any, or else on the calling thread
+   */
+  private void onFace(Runnable io) {
+    FaceEventLoop loop = DefaultFaceEventLoop.driving(face);
+    if (loop != null && !loop.inEventLoop()) {
+      try {
+        loop.execute(io);
+        return;
+      } catch (RejectedExecutionException e) {
+        LOGGER.log(Level.FINER, "The event loop driving the face stopped; running the IO on this thread.", e);
       }
     }
+    io.run();
   }
 
   private void sendContent(Face face, Name name) {
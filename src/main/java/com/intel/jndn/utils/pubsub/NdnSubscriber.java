@@ -16,8 +16,10 @@ package com.intel.jndn.utils.pubsub;
 
 import com.intel.jndn.utils.Cancellation;
 import com.intel.jndn.utils.Client;
+import com.intel.jndn.utils.FaceEventLoop;
 import com.intel.jndn.utils.On;
 import com.intel.jndn.utils.Subscriber;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
@@ -35,6 +37,9 @@ import java.util.logging.Logger;
 
 /**
  * TODO look at thread safety
+ * <p>
+ * When a {@link FaceEventLoop} drives the face (see {@link DefaultFaceEventLoop#driving(Face)}), message requests are
+ * submitted to the loop instead of using the face from the calling thread.
  *
  * @author Andrew Brown, andrew.brown@intel.com
  */
@@ -103,6 +108,17 @@ class NdnSubscriber implements Subscriber {
     }
   }
 
+  /**
+   * Request from the loop driving the face, if any, or else from the calling thread
+   */
+  private CompletableFuture<Data> request(Interest interest) {
+    FaceEventLoop loop = DefaultFaceEventLoop.driving(face);
+    if (loop != null && !loop.inEventLoop()) {
+      return loop.submit(() -> client.getAsync(face, interest)).thenCompose(f -> f);
+    }
+    return client.getAsync(face, interest);
+  }
+
   private class Subscription implements Cancellation {
     final long publisherId;
     long messageId;
@@ -121,7 +137,7 @@ class NdnSubscriber implements Subscriber {
 
     synchronized void subscribe() {
       // would prefer this to be getAsync(on<>, on<>)?
-      currentRequest = client.getAsync(face, buildLatestInterest(publisherId));
+      currentRequest = request(buildLatestInterest(publisherId));
       currentRequest.handle(this::handleResponse);
     }
 
@@ -133,7 +149,7 @@ class NdnSubscriber implements Subscriber {
     }
 
     synchronized void next(long publisherId, long messageId) {
-      currentRequest = client.getAsync(face, buildNextInterest(publisherId, messageId));
+      currentRequest = request(buildNextInterest(publisherId, messageId));
       currentRequest.handle(this::handleResponse);
     }
 
@@ -14,12 +14,13 @@
 
 package com.intel.jndn.utils.pubsub;
 
+import com.intel.jndn.utils.FaceEventLoop;
 import com.intel.jndn.utils.On;
 import com.intel.jndn.utils.Publisher;
 import com.intel.jndn.utils.Subscriber;
 import com.intel.jndn.utils.client.impl.AdvancedClient;
-import com.intel.jndn.utils.impl.BoundedInMemoryPendingInterestTable;
 import com.intel.jndn.utils.impl.InMemoryContentStore;
+import com.intel.jndn.utils.impl.NameTreePendingInterestTable;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Name;
 import net.named_data.jndn.util.Blob;
@@ -33,13 +34,15 @@ import java.security.SecureRandom;
  * @author Andrew Brown, andrew.brown@intel.com
  */
 public class PubSubFactory {
+  private static final int PUBLISHER_MAX_MESSAGES = 1024;
+  private static final long PUBLISHER_MAX_BYTES = 16 * 1024 * 1024;
 
   private PubSubFactory() {
     // do not instantiate this factory
   }
 
   /**
-   * @param face the face to use for network IO; must be driven externally (e.g. {@link Face#processEvents()})
+   * @param face the face to use for network IO; must be driven externally (e.g. by a {@link FaceEventLoop})
    * @param prefix the NDN namespace under which messages are published
    * @param onMessage callback fired when a message is received
    * @param onError callback fired when an error happens after subscription
@@ -55,12 +58,13 @@ public class PubSubFactory {
   }
 
   /**
-   * @param face the face to use for network IO; must be driven externally (e.g. {@link Face#processEvents()})
+   * @param face the face to use for network IO; must be driven externally (e.g. by a {@link FaceEventLoop})
    * @param prefix the NDN namespace under which messages are published
-   * @return a group-announcing, unopened subscriber (it will automatically open on first publish)
+   * @return a group-announcing, unopened subscriber (it will automatically open on first publish); only the latest
+   * messages are retained for retrieval
    */
   public static Publisher newPublisher(Face face, Name prefix) {
     long publisherId = Math.abs(new SecureRandom().nextLong());
-    return new NdnPublisher(face, prefix, publisherId, new NdnAnnouncementService(face, prefix), new BoundedInMemoryPendingInterestTable(1024), new InMemoryContentStore(2000));
+    return new NdnPublisher(face, prefix, publisherId, new NdnAnnouncementService(face, prefix), new NameTreePendingInterestTable(1024), new InMemoryContentStore(2000, PUBLISHER_MAX_MESSAGES, PUBLISHER_MAX_BYTES, InMemoryContentStore.Eviction.FIFO));
   }
 }
@@ -0,0 +1,180 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.repository.impl;
+
+import com.intel.jndn.utils.Repository;
+import com.intel.jndn.utils.SortedNameTree;
+import com.intel.jndn.utils.impl.DefaultSortedNameTree;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Store {@link Data} packets in a {@link SortedNameTree} indexed by name so
+ * that lookups walk the Interest name instead of scanning every packet stored
+ * (as {@link ForLoopRepository} does). Exact matches cost one step per name
+ * component; for prefix matches, the first acceptable packet is found by
+ * walking the subtree in canonical name order. Since children are kept sorted,
+ * the leftmost or rightmost child is found in time logarithmic in the number
+ * of children (e.g. the last of many segments) without copying or sorting.
+ * <p>
+ * Child selectors operate only on the component following the Interest name
+ * (see {@link ForLoopRepository}); within the selected child, and for
+ * Interests without a child selector, the leftmost acceptable packet (in
+ * canonical order, shorter names first) is returned. Every candidate is
+ * filtered by {@link Interest#matchesName(Name)} (for the remaining selectors)
+ * and freshness.
+ * <p>
+ * This class is coarsely thread-safe; every public method is synchronized.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class NameTreeRepository implements Repository {
+
+  private final SortedNameTree<Record> tree = DefaultSortedNameTree.newRootTree();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void put(Data data) {
+    tree.insert(data.getName(), new Record(data));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized Data get(Interest interest) throws DataNotFoundException {
+    Record record = select(interest);
+    if (record == null) {
+      throw new DataNotFoundException();
+    }
+    return record.data;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized boolean satisfies(Interest interest) {
+    return select(interest) != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void cleanup() {
+    List<Name> stale = new ArrayList<>();
+    collectStale(tree, stale);
+    for (Name name : stale) {
+      tree.delete(name);
+    }
+  }
+
+  /**
+   * @param interest the request
+   * @return the best record for the request or null if none match
+   */
+  private Record select(Interest interest) {
+    Name name = interest.getName();
+    SortedNameTree<Record> node = tree.lookup(name, name.size());
+    if (node == null) {
+      return null;
+    }
+
+    if (interest.getChildSelector() == Interest.CHILD_SELECTOR_RIGHT) {
+      for (SortedNameTree<Record> child : node.descendingChildren()) {
+        Record record = leftmost(child, interest);
+        if (record != null) {
+          return record;
+        }
+      }
+      // the exact match sorts before all children and is therefore rightmost only if nothing else matches
+      return isAcceptable(node, interest) ? node.content().get() : null;
+    } else {
+      return leftmost(node, interest);
+    }
+  }
+
+  /**
+   * Walk the subtree in canonical order; the children views are iterated
+   * lazily so that the common case (e.g. the first segment of a content name)
+   * only visits the leftmost child
+   *
+   * @param node the subtree to search
+   * @param interest the request
+   * @return the leftmost acceptable record or null if none match
+   */
+  private Record leftmost(SortedNameTree<Record> node, Interest interest) {
+    if (isAcceptable(node, interest)) {
+      return node.content().get();
+    }
+
+    for (SortedNameTree<Record> child : node.ascendingChildren()) {
+      Record record = leftmost(child, interest);
+      if (record != null) {
+        return record;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param node the node to check
+   * @param interest the request
+   * @return true if the node stores a packet matching the Interest's name,
+   * selectors and freshness requirements
+   */
+  private boolean isAcceptable(SortedNameTree<Record> node, Interest interest) {
+    Optional<Record> content = node.content();
+    return content.isPresent()
+        && (!interest.getMustBeFresh() || content.get().isFresh())
+        && interest.matchesName(content.get().data.getName());
+  }
+
+  private void collectStale(SortedNameTree<Record> node, List<Name> stale) {
+    if (node.content().isPresent() && !node.content().get().isFresh()) {
+      stale.add(node.content().get().data.getName());
+    }
+    for (SortedNameTree<Record> child : node.ascendingChildren()) {
+      collectStale(child, stale);
+    }
+  }
+
+  /**
+   * Helper data structure
+   */
+  private static class Record {
+
+    final Data data;
+    final long addedAt;
+
+    Record(Data data) {
+      this.data = data;
+      this.addedAt = System.currentTimeMillis();
+    }
+
+    boolean isFresh() {
+      double period = data.getMetaInfo().getFreshnessPeriod();
+      return period < 0 || addedAt + (long) period > System.currentTimeMillis();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.repository.impl;
+
+import com.intel.jndn.utils.Repository;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Store {@link Data} packets in a {@link ConcurrentSkipListMap} sorted in
+ * canonical name order. In this order a name is followed by all names it is a
+ * prefix of, so the packets under an Interest name form a contiguous range and
+ * the first acceptable packet of the range is the leftmost match; lookups
+ * cost a logarithmic search plus a scan over rejected candidates.
+ * <p>
+ * This class is thread-safe without a global lock: producers may {@link #put(Data)}
+ * and {@link #cleanup()} while other threads answer Interests; readers see
+ * packets as soon as they are inserted. As in {@link ForLoopRepository}, child
+ * selectors operate only on the component following the Interest name.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class SkipListRepository implements Repository {
+
+  private final ConcurrentSkipListMap<Name, Record> storage = new ConcurrentSkipListMap<>(Name::compare);
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void put(Data data) {
+    storage.put(new Name(data.getName()), new Record(data));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Data get(Interest interest) throws DataNotFoundException {
+    Record record = select(interest);
+    if (record == null) {
+      throw new DataNotFoundException();
+    }
+    return record.data;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean satisfies(Interest interest) {
+    return select(interest) != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void cleanup() {
+    for (Map.Entry<Name, Record> entry : storage.entrySet()) {
+      if (!entry.getValue().isFresh()) {
+        storage.remove(entry.getKey(), entry.getValue()); // keep packets replaced in the meantime
+      }
+    }
+  }
+
+  /**
+   * @param interest the request
+   * @return the best record for the request or null if none match
+   */
+  private Record select(Interest interest) {
+    Name prefix = interest.getName();
+    if (interest.getChildSelector() != Interest.CHILD_SELECTOR_RIGHT) {
+      return leftmost(under(prefix), interest);
+    }
+
+    // visit the children of the prefix from the right, taking the leftmost match within each
+    NavigableMap<Name, Record> range = under(prefix);
+    Name last = range.isEmpty() ? null : range.lastKey();
+    while (last != null && last.size() > prefix.size()) {
+      Name child = last.getPrefix(prefix.size() + 1);
+      Record record = leftmost(under(child), interest);
+      if (record != null) {
+        return record;
+      }
+      last = range.lowerKey(child);
+    }
+    return leftmost(range.headMap(prefix, true), interest);
+  }
+
+  /**
+   * @param prefix a name prefix
+   * @return a view of the packets whose names begin with the prefix
+   */
+  private NavigableMap<Name, Record> under(Name prefix) {
+    if (prefix.size() == 0) {
+      return storage;
+    }
+    return storage.subMap(prefix, true, prefix.getSuccessor(), false);
+  }
+
+  private static Record leftmost(NavigableMap<Name, Record> range, Interest interest) {
+    for (Record record : range.values()) {
+      if (isAcceptable(record, interest)) {
+        return record;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param record the record to check
+   * @param interest the request
+   * @return true if the record's packet matches the Interest's name,
+   * selectors and freshness requirements
+   */
+  private static boolean isAcceptable(Record record, Interest interest) {
+    return (!interest.getMustBeFresh() || record.isFresh()) && interest.matchesName(record.data.getName());
+  }
+
+  /**
+   * Helper data structure
+   */
+  private static class Record {
+
+    final Data data;
+    final long addedAt;
+
+    Record(Data data) {
+      this.data = data;
+      this.addedAt = System.currentTimeMillis();
+    }
+
+    boolean isFresh() {
+      double period = data.getMetaInfo().getFreshnessPeriod();
+      return period < 0 || addedAt + (long) period > System.currentTimeMillis();
+    }
+  }
+}
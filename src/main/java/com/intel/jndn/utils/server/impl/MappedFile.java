@@ -0,0 +1,120 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.server.impl;
+
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.util.Blob;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Build segments of a file on demand from memory-mapped regions of the file;
+ * segment content is a slice of the mapping so no file bytes are copied onto
+ * the heap. A single mapping is limited to 2GB so large files are mapped in
+ * regions (holding a whole number of segments) as they are first requested.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+class MappedFile {
+
+  private static final byte NDN_SEGMENT_MARKER = 0x00;
+  private final Data template;
+  private final FileChannel channel;
+  private final long size;
+  private final int segmentSize;
+  private final long segmentsPerRegion;
+  private final long numSegments;
+  private final Name.Component lastSegment;
+  private final MappedByteBuffer[] regions;
+
+  /**
+   * @param template the {@link Data} packet to use for the segment {@link Name}, {@link net.named_data.jndn.MetaInfo},
+   * etc.
+   * @param file the file to serve; it must not be modified while served
+   * @param segmentSize the maximum number of content bytes per segment
+   * @throws IOException if the file cannot be opened
+   */
+  MappedFile(Data template, Path file, int segmentSize) throws IOException {
+    this.template = new Data(template);
+    this.template.setContent(new Blob());
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.size = channel.size();
+    this.segmentSize = segmentSize;
+    this.segmentsPerRegion = Integer.MAX_VALUE / segmentSize;
+    this.numSegments = Math.max(1, (size + segmentSize - 1) / segmentSize); // an empty file is served as one empty segment
+    this.lastSegment = Name.Component.fromNumberWithMarker(numSegments - 1, NDN_SEGMENT_MARKER);
+    this.regions = new MappedByteBuffer[(int) ((numSegments + segmentsPerRegion - 1) / segmentsPerRegion)];
+  }
+
+  /**
+   * @return the name of the file's content, without segment component
+   */
+  Name getName() {
+    return template.getName();
+  }
+
+  /**
+   * @return the number of segments the file is served in
+   */
+  long numSegments() {
+    return numSegments;
+  }
+
+  /**
+   * @param segmentNumber the segment to build
+   * @return an unsigned segment sharing the file mapping
+   * @throws IOException if the file region cannot be mapped
+   */
+  Data segment(long segmentNumber) throws IOException {
+    if (segmentNumber < 0 || segmentNumber >= numSegments) {
+      throw new IllegalArgumentException("No such segment: " + segmentNumber);
+    }
+
+    ByteBuffer content = region((int) (segmentNumber / segmentsPerRegion)).duplicate();
+    int offset = (int) ((segmentNumber % segmentsPerRegion) * segmentSize);
+    content.position(offset);
+    content.limit(Math.min(content.capacity(), offset + segmentSize));
+
+    Data segment = new Data(template);
+    segment.getName().appendSegment(segmentNumber);
+    segment.getMetaInfo().setFinalBlockId(lastSegment);
+    segment.setContent(new Blob(content.slice(), false));
+    return segment;
+  }
+
+  /**
+   * Stop serving the file; the mappings remain valid until garbage-collected
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  void close() throws IOException {
+    channel.close();
+  }
+
+  private synchronized MappedByteBuffer region(int index) throws IOException {
+    if (regions[index] == null) {
+      long start = index * segmentsPerRegion * segmentSize;
+      long length = Math.min(size - start, segmentsPerRegion * segmentSize);
+      regions[index] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    }
+    return regions[index];
+  }
+}
@@ -15,7 +15,7 @@ package com.intel.jndn.utils.server.impl;
 
 import com.intel.jndn.utils.Repository;
 import com.intel.jndn.utils.impl.SegmentationHelper;
-import com.intel.jndn.utils.repository.impl.ForLoopRepository;
+import com.intel.jndn.utils.repository.impl.SkipListRepository;
 import com.intel.jndn.utils.server.RepositoryServer;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
@@ -24,10 +24,11 @@ import net.named_data.jndn.InterestFilter;
 import net.named_data.jndn.Name;
 import net.named_data.jndn.encoding.EncodingException;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,13 +41,32 @@ import java.util.logging.Logger;
 public class SegmentedServer extends ServerBaseImpl implements RepositoryServer {
 
   private static final Logger logger = Logger.getLogger(SegmentedServer.class.getName());
-  private final Repository repository = new ForLoopRepository();
+  private final Repository repository;
+  private final Map<Name, MappedFile> files = new ConcurrentHashMap<>();
 
   /**
-   * {@inheritDoc}
+   * Build a server storing its packets in a thread-safe
+   * {@link SkipListRepository}
+   *
+   * @param face a {@link Face} allowing prefix registration
+   * @param prefix the {@link Name} to register
    */
   public SegmentedServer(Face face, Name prefix) {
+    this(face, prefix, new SkipListRepository());
+  }
+
+  /**
+   * Build a server storing its packets in the given repository; note that
+   * {@link #serve(Data)} and {@link #onInterest(Name, Interest, Face, long, InterestFilter)}
+   * may run on different threads so the repository should be thread-safe
+   *
+   * @param face a {@link Face} allowing prefix registration
+   * @param prefix the {@link Name} to register
+   * @param repository the {@link Repository} to store segments in
+   */
+  public SegmentedServer(Face face, Name prefix, Repository repository) {
     super(face, prefix);
+    this.repository = repository;
   }
 
   /**
@@ -59,9 +79,10 @@ public class SegmentedServer extends ServerBaseImpl implements RepositoryServer
     }
 
     if (data.getContent().size() >= SegmentationHelper.DEFAULT_SEGMENT_SIZE) {
-      InputStream stream = new ByteArrayInputStream(data.getContent().getImmutableArray());
-      List<Data> segments = SegmentationHelper.segment(data, stream);
-      for (Data segment : segments) {
+      // segments share the content's buffer rather than copying it
+      Iterator<Data> segments = SegmentationHelper.segmentIterator(data, data.getContent().buf(), SegmentationHelper.DEFAULT_SEGMENT_SIZE);
+      while (segments.hasNext()) {
+        Data segment = segments.next();
         logger.fine("Adding segment: " + segment.getName().toUri());
         repository.put(segment);
       }
@@ -71,13 +92,42 @@ public class SegmentedServer extends ServerBaseImpl implements RepositoryServer
     }
   }
 
+  /**
+   * Serve a file without loading it: the file is memory-mapped and each segment
+   * is built (and run through the processing pipeline, e.g. signed) when it is
+   * requested, with content sliced from the mapping. The file must not be
+   * modified while it is served.
+   *
+   * @param template the {@link Data} packet to use for the segment {@link Name}, {@link net.named_data.jndn.MetaInfo},
+   * etc.; its content is ignored
+   * @param file the file to serve
+   * @throws IOException if the file cannot be opened or the prefix cannot be
+   * registered
+   */
+  public void serve(Data template, Path file) throws IOException {
+    if (!isRegistered()) {
+      register();
+    }
+
+    MappedFile mapped = new MappedFile(template, file, SegmentationHelper.DEFAULT_SEGMENT_SIZE);
+    MappedFile replaced = files.put(new Name(template.getName()), mapped);
+    if (replaced != null) {
+      replaced.close();
+    }
+    logger.fine("Serving file " + file + " in " + mapped.numSegments() + " segments: " + template.getName().toUri());
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public void onInterest(Name prefix, Interest interest, Face face, long interestFilterId, InterestFilter filter) {
     logger.finer("Serving packet for: " + interest.toUri());
-    
+
+    if (!files.isEmpty() && serveFromFile(interest, face)) {
+      return;
+    }
+
     if (interest.getChildSelector() == -1) {
       try {
         interest.getName().get(-1).toSegment();
@@ -95,6 +145,41 @@ public class SegmentedServer extends ServerBaseImpl implements RepositoryServer
     }
   }
 
+  /**
+   * @param interest the request
+   * @param face the face to respond on
+   * @return true if the Interest named a served file (whether or not a segment
+   * could be sent)
+   */
+  private boolean serveFromFile(Interest interest, Face face) {
+    Name name = interest.getName();
+    MappedFile file = files.get(name);
+    long segmentNumber;
+    if (file != null) {
+      segmentNumber = interest.getChildSelector() == Interest.CHILD_SELECTOR_RIGHT ? file.numSegments() - 1 : 0;
+    } else if (name.size() > 0 && (file = files.get(name.getPrefix(-1))) != null) {
+      try {
+        segmentNumber = name.get(-1).toSegment();
+      } catch (EncodingException e) {
+        return false;
+      }
+    } else {
+      return false;
+    }
+
+    try {
+      if (segmentNumber < file.numSegments()) {
+        Data data = file.segment(segmentNumber);
+        if (interest.matchesName(data.getName())) {
+          face.putData(processPipeline(data));
+        }
+      }
+    } catch (Exception e) {
+      logger.log(Level.FINE, "Failed to serve file segment for: " + interest.toUri(), e);
+    }
+    return true;
+  }
+
   /**
    * {@inheritDoc}
    */
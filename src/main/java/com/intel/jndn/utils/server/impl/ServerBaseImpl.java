@@ -16,12 +16,12 @@ package com.intel.jndn.utils.server.impl;
 import com.intel.jndn.utils.ProcessingStage;
 import com.intel.jndn.utils.ProcessingStageException;
 import com.intel.jndn.utils.Server;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.ForwardingFlags;
 import net.named_data.jndn.Name;
 import net.named_data.jndn.OnRegisterFailed;
-import net.named_data.jndn.encoding.EncodingException;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -124,7 +124,11 @@ public abstract class ServerBaseImpl implements Server {
   }
 
   /**
-   * {@inheritDoc}
+   * Register the prefix if necessary and serve packets on the calling thread
+   * with a {@link DefaultFaceEventLoop}; the thread blocks while the face is
+   * idle. Unlike earlier versions, which served until the process exited, this
+   * returns once the calling thread is interrupted (leaving its interrupt status
+   * set) or the loop fails to wait for events.
    */
   @Override
   public void run() {
@@ -137,16 +141,9 @@ public abstract class ServerBaseImpl implements Server {
     }
 
     // continuously serve packets
-    while (true) {
-      try {
-        synchronized (face) {
-          face.processEvents();
-        }
-      } catch (IOException ex) {
-        logger.log(Level.SEVERE, "Failed to process events.", ex);
-      } catch (EncodingException ex) {
-        logger.log(Level.SEVERE, "Failed to parse bytes.", ex);
-      }
+    new DefaultFaceEventLoop(face).run();
+    if (Thread.currentThread().isInterrupted()) {
+      logger.log(Level.INFO, "Interrupted, stopped serving prefix: " + prefix.toUri());
     }
   }
 }
@@ -0,0 +1,89 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2015, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+package com.intel.jndn.utils;
+
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the default methods of {@link Client}
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class ClientTest {
+  private final List<Name> requested = new ArrayList<>();
+
+  /**
+   * A client implementing only the abstract methods; it answers every name but {@code /missing}
+   */
+  private final Client instance = new Client() {
+    @Override
+    public CompletableFuture<Data> getAsync(Face face, Interest interest) {
+      return getAsync(face, interest.getName());
+    }
+
+    @Override
+    public CompletableFuture<Data> getAsync(Face face, Name name) {
+      requested.add(name);
+      CompletableFuture<Data> future = new CompletableFuture<>();
+      if (name.equals(new Name("/missing"))) {
+        future.completeExceptionally(new TimeoutException());
+      } else {
+        future.complete(new Data(name));
+      }
+      return future;
+    }
+
+    @Override
+    public Data getSync(Face face, Interest interest) throws IOException {
+      return getAsync(face, interest).join();
+    }
+
+    @Override
+    public Data getSync(Face face, Name name) throws IOException {
+      return getAsync(face, name).join();
+    }
+  };
+
+  @Test
+  public void getAllAsyncFansOutOverGetAsync() throws Exception {
+    List<Interest> interests = Arrays.asList(new Interest(new Name("/b")), new Interest(new Name("/a")), new Interest(new Name("/b")));
+    Map<Name, Data> results = instance.getAllAsync(null, interests).get();
+
+    assertEquals(Arrays.asList(new Name("/b"), new Name("/a")), requested);
+    assertEquals(Arrays.asList(new Name("/b"), new Name("/a")), new ArrayList<>(results.keySet()));
+    assertEquals(new Name("/a"), results.get(new Name("/a")).getName());
+  }
+
+  @Test
+  public void getAllAsyncByNameFailsIfAnyRequestFails() throws Exception {
+    CompletableFuture<Map<Name, Data>> future = instance.getAllAsync(null, Arrays.asList(new Name("/a"), new Name("/missing")));
+    assertTrue(future.isCompletedExceptionally());
+    assertEquals(2, requested.size());
+  }
+}
@@ -17,6 +17,7 @@ import com.intel.jndn.mock.MockFace;
 import com.intel.jndn.mock.MockForwarder;
 import com.intel.jndn.utils.TestHelper;
 import com.intel.jndn.utils.client.SegmentationType;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
 import com.intel.jndn.utils.impl.SegmentationHelper;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
@@ -24,12 +25,16 @@ import net.named_data.jndn.Interest;
 import net.named_data.jndn.InterestFilter;
 import net.named_data.jndn.Name;
 import net.named_data.jndn.OnInterestCallback;
+import net.named_data.jndn.encoding.EncodingException;
 import net.named_data.jndn.util.Blob;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
@@ -65,6 +70,39 @@ public class AdvancedClientTest {
     assertTrue(future.isCompletedExceptionally());
   }
 
+  @Test
+  public void testOneTimeoutBacksOffOnce() throws Exception {
+    Name name = new Name("/test/advanced/rto");
+    face.onSendInterest.add(interest -> {
+      try {
+        if (face.sentInterests.size() == 1) {
+          face.receive(TestHelper.buildData(new Name(name).appendSegment(0), "0", 1));
+        } else if (face.sentInterests.size() == 3) {
+          face.receive(TestHelper.buildData(new Name(name).appendSegment(1), "1", 1));
+        } // the first Interest for segment 1 times out
+      } catch (EncodingException e) {
+        fail(e.getMessage());
+      }
+    });
+
+    DefaultRttEstimator estimator = new DefaultRttEstimator(1000, 10, 60000, 16);
+    PipelinedSegmentedClient pipeline = new PipelinedSegmentedClient(1, 8, 0.5, estimator, 0);
+    AdvancedClient client = new AdvancedClient(SimpleClient.DEFAULT_SLEEP_TIME, estimator, pipeline,
+        new DefaultRetryClient(1, estimator), new DefaultStreamingClient(pipeline));
+    CompletableFuture<Data> future = client.getAsync(face, new Interest(new Name(name).appendSegment(0), 1000));
+    for (int i = 0; i < 100 && !future.isDone(); i++) {
+      face.processEvents();
+      Thread.sleep(5);
+    }
+
+    assertEquals("01", future.get().getContent().toString());
+    assertEquals(3, face.sentInterests.size());
+    double timedOut = face.sentInterests.get(1).getInterestLifetimeMilliseconds();
+    double retried = face.sentInterests.get(2).getInterestLifetimeMilliseconds();
+    // backed off by the retry client only, not by the pipeline too; lifetimes are encoded in whole milliseconds
+    assertEquals(2 * timedOut, retried, 1.0);
+  }
+
   @Test
   public void testGetSync() throws Exception {
     Name name = new Name("/segmented/data");
@@ -93,6 +131,51 @@ public class AdvancedClientTest {
     assertEquals(10, data.getContent().size());
   }
 
+  @Test
+  public void testGetSyncOnLoopWithSegmentsAndRetries() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    face.onSendInterest.add(interest -> {
+      if (requests.incrementAndGet() <= AdvancedClient.DEFAULT_MAX_RETRIES) {
+        return; // drop Interests until the last retry; together they outlast a single Interest lifetime
+      }
+      Data data = new Data(interest.getName());
+      data.getMetaInfo().setFinalBlockId(Name.Component.fromNumberWithMarker(4, 0x00));
+      data.setContent(new Blob("."));
+      try {
+        face.receive(data);
+      } catch (EncodingException e) {
+        fail(e.getMessage());
+      }
+    });
+
+    DefaultFaceEventLoop loop = DefaultFaceEventLoop.start(face);
+    try {
+      Data data = instance.getSync(face, new Interest(new Name("/segmented/looped").appendSegment(0), 500));
+      assertEquals(5, data.getContent().size());
+      assertEquals(AdvancedClient.DEFAULT_MAX_RETRIES + 5, requests.get());
+    } finally {
+      loop.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetAllAsyncAssemblesSegments() throws Exception {
+    List<Name> names = Arrays.asList(new Name("/a/b"), new Name("/c/d"));
+    for (Name name : names) {
+      for (Data segment : TestHelper.buildSegments(name, 0, 3)) {
+        face.receive(segment);
+      }
+    }
+
+    CompletableFuture<Map<Name, Data>> future = instance.getAllAsync(face, names);
+    while (!future.isDone()) {
+      face.processEvents();
+    }
+
+    assertEquals(2, future.get().size());
+    assertEquals(3, future.get().get(new Name("/c/d")).getContent().size());
+  }
+
   /**
    * Verify that Data returned with a different Name than the Interest is still
    * segmented correctly.
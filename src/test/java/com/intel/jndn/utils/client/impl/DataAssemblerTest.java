@@ -18,9 +18,16 @@ import net.named_data.jndn.Data;
 import net.named_data.jndn.Name;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test that segment data packets are re-assembled correctly.
@@ -67,6 +74,64 @@ public class DataAssemblerTest {
     assertEquals("", reassembled.getContent().toString());
   }
 
+  @Test
+  public void testAssembleDirectBuffer() {
+    Data[] packets = TestHelper.buildSegments(new Name("/data/assembly"), 0, 10).toArray(new Data[]{});
+    DataAssembler instance = new DataAssembler(packets, (byte) 0x00);
+
+    ByteBuffer buffer = instance.assembleBuffer(true);
+    assertTrue(buffer.isDirect());
+    assertEquals(10, buffer.remaining());
+    byte[] bytes = new byte[10];
+    buffer.get(bytes);
+    assertEquals("0123456789", new String(bytes));
+  }
+
+  @Test
+  public void testWriteToChannel() throws Exception {
+    Data[] packets = TestHelper.buildSegments(new Name("/data/assembly"), 0, 10).toArray(new Data[]{});
+    DataAssembler instance = new DataAssembler(packets, (byte) 0x00);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long written = instance.writeTo(new GatheringChannel(Channels.newChannel(out)));
+
+    assertEquals(10, written);
+    assertEquals("0123456789", out.toString());
+    assertEquals(10, instance.contents().length);
+    assertEquals(1, instance.contents()[0].remaining()); // writing did not consume the packets
+  }
+
+  @Test(expected = IOException.class)
+  public void testWriteToFullChannel() throws Exception {
+    Data[] packets = TestHelper.buildSegments(new Name("/data/assembly"), 0, 10).toArray(new Data[]{});
+    DataAssembler instance = new DataAssembler(packets, (byte) 0x00);
+    WritableByteChannel full = new WritableByteChannel() {
+      private int accepted = 0;
+
+      @Override
+      public int write(ByteBuffer src) {
+        if (accepted == 3) {
+          return 0; // as a non-blocking channel whose buffer is full
+        }
+        int bytes = src.remaining();
+        accepted += bytes;
+        src.position(src.limit());
+        return bytes;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+
+    instance.writeTo(new GatheringChannel(full));
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testReassembleNone() throws InterruptedException, ExecutionException {
     Data[] packets = new Data[]{};
@@ -75,4 +140,49 @@ public class DataAssemblerTest {
 
     instance.assemble();
   }
+
+  /**
+   * Gathering channel writing at most one byte at a time, to exercise partial writes
+   */
+  private static class GatheringChannel implements GatheringByteChannel {
+    private final WritableByteChannel channel;
+
+    GatheringChannel(WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+      for (int i = offset; i < offset + length; i++) {
+        if (srcs[i].hasRemaining()) {
+          ByteBuffer one = srcs[i].duplicate();
+          one.limit(one.position() + 1);
+          int written = channel.write(one);
+          srcs[i].position(srcs[i].position() + written);
+          return written;
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+      return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      return (int) write(new ByteBuffer[]{src});
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.client.impl;
+
+import net.named_data.jndn.Name;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test DefaultRttEstimator
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class DefaultRttEstimatorTest {
+
+  private static final double DELTA = 0.001;
+  private DefaultRttEstimator instance;
+
+  @Before
+  public void before() {
+    instance = new DefaultRttEstimator(1000, 10, 8000, 2);
+  }
+
+  @Test
+  public void testDefaultsWithoutMeasurements() {
+    Name name = new Name("/a/b/c");
+
+    assertEquals(1000, instance.getRetransmissionTimeout(name), DELTA);
+    assertEquals(-1, instance.getSmoothedRtt(name), DELTA);
+    assertEquals(-1, instance.getRttVariation(name), DELTA);
+  }
+
+  @Test
+  public void testMeasurements() {
+    Name name = new Name("/a/b/c");
+
+    instance.addMeasurement(name, 100);
+    assertEquals(100, instance.getSmoothedRtt(name), DELTA);
+    assertEquals(50, instance.getRttVariation(name), DELTA);
+    assertEquals(300, instance.getRetransmissionTimeout(name), DELTA);
+
+    instance.addMeasurement(name, 20);
+    assertEquals(90, instance.getSmoothedRtt(name), DELTA);
+    assertEquals(57.5, instance.getRttVariation(name), DELTA);
+    assertEquals(320, instance.getRetransmissionTimeout(name), DELTA);
+  }
+
+  @Test
+  public void testRtoIsBounded() {
+    Name name = new Name("/a/b/c");
+
+    instance.addMeasurement(name, 0.1);
+    assertEquals(10, instance.getRetransmissionTimeout(name), DELTA);
+
+    for (int i = 0; i < 20; i++) {
+      instance.backoff(name);
+    }
+    assertEquals(8000, instance.getRetransmissionTimeout(name), DELTA);
+  }
+
+  @Test
+  public void testBackoff() {
+    Name name = new Name("/a/b/c");
+    instance.backoff(name);
+    assertEquals(2000, instance.getRetransmissionTimeout(name), DELTA);
+
+    instance.addMeasurement(name, 100);
+    assertEquals(300, instance.getRetransmissionTimeout(name), DELTA);
+    instance.backoff(name);
+    assertEquals(600, instance.getRetransmissionTimeout(name), DELTA);
+  }
+
+  @Test
+  public void testLongestPrefixLookup() {
+    instance.addMeasurement(new Name("/a/b/c"), 100);
+    instance.addMeasurement(new Name("/a/d"), 400);
+
+    assertEquals(100, instance.getSmoothedRtt(new Name("/a/b/other")), DELTA);
+    assertEquals(400, instance.getSmoothedRtt(new Name("/a/other")), DELTA);
+    assertEquals(400, instance.getSmoothedRtt(new Name("/a/other/deeper")), DELTA);
+    assertEquals(-1, instance.getSmoothedRtt(new Name("/other")), DELTA);
+  }
+
+  @Test
+  public void testPrefixesAreBounded() {
+    instance.addMeasurement(new Name("/a/x"), 100);
+    instance.addMeasurement(new Name("/b/x"), 200);
+    instance.addMeasurement(new Name("/c/x"), 300);
+
+    assertEquals(-1, instance.getSmoothedRtt(new Name("/a/x")), DELTA);
+    assertEquals(300, instance.getSmoothedRtt(new Name("/c/x")), DELTA);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBounds() {
+    new DefaultRttEstimator(1, 10, 8000, 2);
+  }
+}
@@ -13,11 +13,15 @@
  */
 package com.intel.jndn.utils.client.impl;
 
+import com.intel.jndn.mock.MockFace;
 import com.intel.jndn.utils.TestHelper;
 import com.intel.jndn.utils.client.OnException;
+import com.intel.jndn.utils.client.SegmentationType;
+import net.named_data.jndn.Interest;
 import net.named_data.jndn.Name;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.io.InputStream;
 
 import static org.junit.Assert.assertEquals;
@@ -48,4 +52,27 @@ public class DefaultStreamingClientTest {
       assertEquals((int) '.', c);
     }
   }
+
+  @Test(expected = IOException.class)
+  public void testTimeoutFailsTheReader() throws Exception {
+    MockFace face = new MockFace();
+    DefaultStreamingClient client = new DefaultStreamingClient(new DefaultSegmentedClient());
+    InputStream in = client.getStreamAsync(face, new Interest(new Name("/test/streaming/timeout"), 1), SegmentationType.SEGMENT);
+
+    Thread.sleep(2);
+    face.processEvents();
+    in.read();
+  }
+
+  @Test(expected = IOException.class)
+  public void testLostSegmentsFailTheReaderOfTheDefaultClient() throws Exception {
+    MockFace face = new MockFace();
+    InputStream in = instance.getStreamAsync(face, new Interest(new Name("/test/streaming/lost"), 1), SegmentationType.SEGMENT);
+
+    for (int i = 0; i <= PipelinedSegmentedClient.DEFAULT_MAX_RETRIES; i++) {
+      Thread.sleep(2);
+      face.processEvents();
+    }
+    in.read();
+  }
 }
@@ -0,0 +1,272 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+package com.intel.jndn.utils.client.impl;
+
+import com.intel.jndn.mock.MeasurableFace;
+import com.intel.jndn.mock.MockFace;
+import com.intel.jndn.mock.MockForwarder;
+import com.intel.jndn.utils.TestHelper;
+import com.intel.jndn.utils.TestHelper.TestCounter;
+import com.intel.jndn.utils.client.DataStream;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.OnTimeout;
+import net.named_data.jndn.encoding.EncodingException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test PipelinedSegmentedClient
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class PipelinedSegmentedClientTest {
+
+  private final PipelinedSegmentedClient instance = new PipelinedSegmentedClient(2, 8, 0.5);
+
+  @Test
+  public void testWindowLimitsOutstandingInterests() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/pipelined/client").appendSegment(0);
+
+    instance.getSegmentsAsync(face, new Interest(name));
+
+    assertEquals(2, face.sentInterests.size());
+    assertEquals(0, face.sentInterests.get(0).getName().get(-1).toSegment());
+    assertEquals(1, face.sentInterests.get(1).getName().get(-1).toSegment());
+  }
+
+  @Test
+  public void testSendsAheadBeforeFinalBlockIdIsKnown() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/pipelined/client");
+    Interest interest = new Interest(name);
+    instance.getSegmentsAsync(face, interest);
+    assertEquals(1, face.sentInterests.size());
+
+    Data first = TestHelper.buildData(new Name(name).appendSegment(0), "0");
+    face.receive(first);
+    face.processEvents();
+
+    // the window grew to 3 and segment 0 is already received
+    assertEquals(4, face.sentInterests.size());
+    assertEquals(3, face.sentInterests.get(3).getName().get(-1).toSegment());
+  }
+
+  @Test
+  public void testRetrieveAll() throws Exception {
+    MockForwarder forwarder = new MockForwarder();
+    Face face = forwarder.connect();
+    Name name = new Name("/test/pipelined/client");
+    serve(face, name, TestHelper.buildSegments(name, 0, 20));
+
+    DataStream stream = instance.getSegmentsAsync(face, new Interest(new Name(name).appendSegment(0), 1000));
+    TestCounter counter = new TestCounter();
+    stream.observe((i, d) -> counter.count++);
+
+    for (int i = 0; i < 100 && !stream.isComplete(); i++) {
+      face.processEvents();
+    }
+
+    assertTrue(stream.isComplete());
+    assertEquals(20, counter.count);
+    assertEquals("012345678910111213141516171819", stream.assemble().getContent().toString());
+    assertTrue(((MeasurableFace) face).sentInterests().size() < 20 + 8);
+  }
+
+  @Test
+  public void testWithAdvancedClient() throws Exception {
+    MockForwarder forwarder = new MockForwarder();
+    Face face = forwarder.connect();
+    Name name = new Name("/test/pipelined/advanced");
+    serve(face, name, TestHelper.buildSegments(name, 0, 10));
+
+    AdvancedClient client = new AdvancedClient(SimpleClient.DEFAULT_SLEEP_TIME, SimpleClient.DEFAULT_TIMEOUT,
+        instance, new DefaultRetryClient(AdvancedClient.DEFAULT_MAX_RETRIES), new DefaultStreamingClient(instance));
+    Data data = client.getSync(face, name);
+
+    assertEquals("0123456789", data.getContent().toString());
+  }
+
+  @Test
+  public void testRttEstimatorSetsLifetimes() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/pipelined/rtt");
+    DefaultRttEstimator estimator = new DefaultRttEstimator();
+    PipelinedSegmentedClient client = new PipelinedSegmentedClient(1, 8, 0.5, estimator);
+    client.getSegmentsAsync(face, new Interest(new Name(name).appendSegment(0), 5000));
+    assertEquals(DefaultRttEstimator.DEFAULT_INITIAL_RTO, face.sentInterests.get(0).getInterestLifetimeMilliseconds(), 0.1);
+
+    face.receive(TestHelper.buildData(new Name(name).appendSegment(0), "0"));
+    face.processEvents();
+
+    assertTrue(estimator.getSmoothedRtt(name) >= 0);
+    assertEquals(DefaultRttEstimator.DEFAULT_MIN_RTO, face.sentInterests.get(1).getInterestLifetimeMilliseconds(), 0.1);
+  }
+
+  @Test
+  public void testLostSegmentsAreRetriedThenPassedToStream() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/pipelined/timeout").appendSegment(0);
+    DataStream stream = instance.getSegmentsAsync(face, new Interest(name, 1));
+    List<Interest> timeouts = new ArrayList<>();
+    stream.observe((OnTimeout) timeouts::add);
+
+    for (int i = 0; i < 100 && timeouts.size() < 2; i++) {
+      Thread.sleep(2);
+      face.processEvents();
+    }
+
+    assertFalse(stream.isComplete());
+    assertEquals(2, timeouts.size());
+    // segments 0 and 1 are each retried; segment 2 is never opened
+    assertEquals(2 * (1 + PipelinedSegmentedClient.DEFAULT_MAX_RETRIES), face.sentInterests.size());
+  }
+
+  @Test
+  public void testAdvancedClientRetriesAfterPipelineGivesUp() throws Exception {
+    MockFace face = new MockFace();
+    AtomicInteger requests = new AtomicInteger();
+    face.onSendInterest.add(interest -> {
+      if (requests.incrementAndGet() == 1) {
+        return; // the pipeline does not retry, so the retry client must
+      }
+      try {
+        face.receive(TestHelper.buildData(interest.getName(), "0", 0));
+      } catch (EncodingException e) {
+        fail(e.getMessage());
+      }
+    });
+
+    PipelinedSegmentedClient pipeline = new PipelinedSegmentedClient(1, 8, 0.5, null, 0);
+    AdvancedClient client = new AdvancedClient(SimpleClient.DEFAULT_SLEEP_TIME, SimpleClient.DEFAULT_TIMEOUT,
+        pipeline, new DefaultRetryClient(AdvancedClient.DEFAULT_MAX_RETRIES), new DefaultStreamingClient(pipeline));
+    Data data = client.getSync(face, new Interest(new Name("/test/pipelined/handover").appendSegment(0), 50));
+
+    assertEquals("0", data.getContent().toString());
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testLostSegmentIsRequestedAgain() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/pipelined/retry");
+    PipelinedSegmentedClient client = new PipelinedSegmentedClient(1, 8, 0.5);
+    DataStream stream = client.getSegmentsAsync(face, new Interest(new Name(name).appendSegment(0), 1));
+
+    Thread.sleep(2);
+    face.processEvents();
+    assertEquals(2, face.sentInterests.size());
+    assertEquals(face.sentInterests.get(0).getName(), face.sentInterests.get(1).getName());
+
+    face.receive(TestHelper.buildData(new Name(name).appendSegment(0), "0", 0));
+    face.processEvents();
+    assertTrue(stream.isComplete());
+    assertEquals("0", stream.assemble().getContent().toString());
+  }
+
+  @Test
+  public void testWindowKeepsFillingWhileRetrying() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/pipelined/recovery");
+    instance.getSegmentsAsync(face, new Interest(new Name(name).appendSegment(0), 100));
+    face.receive(TestHelper.buildData(new Name(name).appendSegment(1), "1"));
+    face.processEvents(); // window of 3: segments 0, 2 and 3 are outstanding
+    assertEquals(4, face.sentInterests.size());
+
+    Thread.sleep(150);
+    face.processEvents(); // all three time out in one loss event and are retried
+    assertEquals(7, face.sentInterests.size());
+
+    face.receive(TestHelper.buildData(new Name(name).appendSegment(2), "2"));
+    face.receive(TestHelper.buildData(new Name(name).appendSegment(3), "3"));
+    face.processEvents();
+
+    // segment 0 is still being retried, yet the window opens the next segment
+    assertEquals(8, face.sentInterests.size());
+    assertEquals(new Name(name).appendSegment(4), face.sentInterests.get(7).getName());
+  }
+
+  @Test
+  public void testFlowControlPausesAndResumesRequests() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/pipelined/flow");
+    SegmentQueueInputStream in = new SegmentQueueInputStream(2);
+    DataStream stream = instance.getSegmentsAsync(face, new Interest(new Name(name).appendSegment(0)), in);
+    assertEquals(2, face.sentInterests.size());
+
+    in.offer(ByteBuffer.wrap(new byte[2])); // the reader falls behind
+    face.receive(TestHelper.buildData(new Name(name).appendSegment(0), "0"));
+    face.processEvents();
+    assertEquals(2, face.sentInterests.size());
+
+    assertEquals(2, in.read(new byte[2]));
+    face.processEvents();
+    assertEquals(4, face.sentInterests.size());
+  }
+
+  @Test
+  public void testResumeRunsOnTheDrivingLoop() throws Exception {
+    MockFace face = new MockFace();
+    List<Boolean> sentFromLoop = new CopyOnWriteArrayList<>();
+    DefaultFaceEventLoop loop = DefaultFaceEventLoop.start(face);
+    face.onSendInterest.add(interest -> sentFromLoop.add(loop.inEventLoop()));
+    try {
+      SegmentQueueInputStream in = new SegmentQueueInputStream(2);
+      in.offer(ByteBuffer.wrap(new byte[2])); // the reader is behind before the request starts
+      Interest interest = new Interest(new Name("/test/pipelined/resume").appendSegment(0));
+      loop.submit(() -> instance.getSegmentsAsync(face, interest, in)).get(1, TimeUnit.SECONDS);
+      assertTrue(sentFromLoop.isEmpty());
+
+      assertEquals(2, in.read(new byte[2])); // resumes on this thread
+      for (int i = 0; i < 100 && sentFromLoop.size() < 2; i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(Arrays.asList(true, true), sentFromLoop);
+    } finally {
+      loop.shutdown();
+    }
+  }
+
+  private void serve(Face producer, Name prefix, List<Data> segments) throws Exception {
+    producer.registerPrefix(prefix, (p, interest, f, id, filter) -> {
+      for (Data segment : segments) {
+        if (interest.matchesName(segment.getName())) {
+          try {
+            f.putData(segment);
+          } catch (IOException e) {
+            fail(e.getMessage());
+          }
+          return;
+        }
+      }
+    }, null);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.client.impl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class SegmentQueueInputStreamTest {
+
+  private final SegmentQueueInputStream instance = new SegmentQueueInputStream(8);
+
+  @Test
+  public void testBulkReadAcrossSegments() throws Exception {
+    instance.offer(ByteBuffer.wrap("abc".getBytes()));
+    instance.offer(ByteBuffer.wrap("def".getBytes()));
+    instance.finish();
+
+    assertEquals(6, instance.available());
+    byte[] buffer = new byte[10];
+    assertEquals(6, instance.read(buffer, 0, buffer.length));
+    assertEquals("abcdef", new String(buffer, 0, 6));
+    assertEquals(-1, instance.read(buffer, 0, buffer.length));
+    assertEquals(-1, instance.read());
+  }
+
+  @Test
+  public void testTransferTo() throws Exception {
+    instance.offer(ByteBuffer.wrap("abc".getBytes()));
+    ByteBuffer direct = ByteBuffer.allocateDirect(3);
+    direct.put("def".getBytes()).flip();
+    instance.offer(direct);
+    instance.finish();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(6, instance.transferTo(out));
+    assertArrayEquals("abcdef".getBytes(), out.toByteArray());
+  }
+
+  @Test
+  public void testTransferToChannel() throws Exception {
+    instance.offer(ByteBuffer.wrap("abc".getBytes()));
+    instance.finish();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(3, instance.transferTo(Channels.newChannel(out)));
+    assertArrayEquals("abc".getBytes(), out.toByteArray());
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    AtomicInteger resumed = new AtomicInteger();
+    instance.onResumed(resumed::incrementAndGet);
+
+    instance.offer(ByteBuffer.wrap(new byte[6]));
+    assertTrue(instance.canRequest());
+    instance.offer(ByteBuffer.wrap(new byte[6]));
+    assertFalse(instance.canRequest());
+
+    instance.read(new byte[4]);
+    assertEquals(0, resumed.get());
+    instance.read(new byte[4]);
+    assertEquals(1, resumed.get());
+    assertTrue(instance.canRequest());
+  }
+
+  @Test
+  public void testReadBlocksUntilOffered() throws Exception {
+    Thread producer = new Thread(() -> {
+      instance.offer(ByteBuffer.wrap(new byte[]{42}));
+      instance.finish();
+    });
+    producer.start();
+
+    assertEquals(42, instance.read());
+    assertEquals(-1, instance.read());
+    producer.join();
+  }
+
+  @Test(expected = IOException.class)
+  public void testFailure() throws Exception {
+    instance.offer(ByteBuffer.wrap(new byte[]{1}));
+    instance.fail(new RuntimeException("..."));
+
+    assertEquals(1, instance.read());
+    instance.read();
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadAfterClose() throws Exception {
+    instance.close();
+    assertFalse(instance.canRequest());
+    instance.read();
+  }
+}
@@ -21,6 +21,10 @@ import net.named_data.jndn.Name.Component;
 import net.named_data.jndn.encoding.EncodingException;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.stream.IntStream;
 
@@ -48,6 +52,23 @@ public class SegmentedDataStreamTest {
     assertEquals("...", instance.assemble().getContent().toString());
   }
 
+  @Test
+  public void testWriteToChannel() throws Exception {
+    Name name = new Name("/test/segmented/data/stream");
+    Interest interest = new Interest(name);
+    instance.onData(interest, TestHelper.buildData(new Name(name).appendSegment(1), "b"));
+    instance.onData(interest, TestHelper.buildData(new Name(name).appendSegment(0), "a"));
+
+    FileChannel channel = FileChannel.open(Files.createTempFile("segmented", ".tmp"), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    assertEquals(2, instance.writeTo(channel));
+    assertEquals(2, instance.contents().length);
+
+    ByteBuffer written = ByteBuffer.allocate(2);
+    channel.read(written, 0);
+    channel.close();
+    assertEquals("ab", new String(written.array()));
+  }
+
   @Test
   public void testAddingUnorderedData() throws StreamException {
     Name name = new Name("/test/segmented/data/stream");
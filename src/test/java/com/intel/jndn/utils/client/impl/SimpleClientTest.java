@@ -14,24 +14,38 @@
 package com.intel.jndn.utils.client.impl;
 
 import com.intel.jndn.mock.MockFace;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
+import com.intel.jndn.utils.impl.FaceSelector;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
 import net.named_data.jndn.Name;
+import net.named_data.jndn.OnData;
+import net.named_data.jndn.OnTimeout;
+import net.named_data.jndn.encoding.EncodingException;
 import net.named_data.jndn.util.Blob;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Test SimpleClient.java
@@ -106,6 +120,53 @@ public class SimpleClientTest {
     }
   }
 
+  @Test
+  public void testAdaptiveInterestLifetime() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/adaptive/data");
+    DefaultRttEstimator estimator = new DefaultRttEstimator();
+    SimpleClient client = new SimpleClient(SimpleClient.DEFAULT_SLEEP_TIME, estimator);
+    assertEquals(DefaultRttEstimator.DEFAULT_INITIAL_RTO, client.getDefaultInterest(name).getInterestLifetimeMilliseconds(), 0.1);
+
+    face.receive(new Data(name));
+    Future<Data> futureData = client.getAsync(face, name);
+    face.processEvents();
+
+    assertTrue(futureData.isDone());
+    assertTrue(estimator.getSmoothedRtt(name) >= 0);
+    assertEquals(DefaultRttEstimator.DEFAULT_MIN_RTO, client.getDefaultInterest(name).getInterestLifetimeMilliseconds(), 0.1);
+  }
+
+  @Test
+  public void testTimeoutBacksOffOwnedEstimator() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/adaptive/timeout");
+    DefaultRttEstimator estimator = new DefaultRttEstimator(10, 10, DefaultRttEstimator.DEFAULT_MAX_RTO, DefaultRttEstimator.DEFAULT_MAX_PREFIXES);
+    SimpleClient client = new SimpleClient(SimpleClient.DEFAULT_SLEEP_TIME, estimator);
+
+    Future<Data> futureData = client.getAsync(face, name);
+    Thread.sleep(20);
+    face.processEvents();
+
+    assertTrue(futureData.isDone());
+    assertEquals(20, client.getDefaultInterest(name).getInterestLifetimeMilliseconds(), 0.1);
+  }
+
+  @Test
+  public void testTimeoutLeavesSharedEstimatorToRetryLayer() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/adaptive/timeout");
+    DefaultRttEstimator estimator = new DefaultRttEstimator(10, 10, DefaultRttEstimator.DEFAULT_MAX_RTO, DefaultRttEstimator.DEFAULT_MAX_PREFIXES);
+    SimpleClient client = new SimpleClient(SimpleClient.DEFAULT_SLEEP_TIME, estimator, false, false);
+
+    Future<Data> futureData = client.getAsync(face, name);
+    Thread.sleep(20);
+    face.processEvents();
+
+    assertTrue(futureData.isDone());
+    assertEquals(10, client.getDefaultInterest(name).getInterestLifetimeMilliseconds(), 0.1);
+  }
+
   @Test(expected = Exception.class)
   public void testAsyncFailureToRetrieve() throws Exception {
     Face face = new MockFace();
@@ -118,6 +179,195 @@ public class SimpleClientTest {
     future.get(15, TimeUnit.MILLISECONDS);
   }
 
+  @Test
+  public void testGetAllAsync() throws Exception {
+    MockFace face = new MockFace();
+    List<Interest> interests = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Name name = new Name("/test/all").appendSegment(i);
+      interests.add(new Interest(name, 1000));
+      Data response = new Data(name);
+      response.setContent(new Blob("..."));
+      face.receive(response);
+    }
+    interests.add(new Interest(new Name("/test/all").appendSegment(0), 1000));
+
+    CompletableFuture<Map<Name, Data>> future = new SimpleClient().getAllAsync(face, interests, 2);
+    assertEquals(2, face.sentInterests.size());
+
+    while (!future.isDone()) {
+      face.processEvents();
+    }
+
+    Map<Name, Data> data = future.get();
+    assertEquals(5, face.sentInterests.size());
+    assertEquals(5, data.size());
+    assertEquals(interests.get(4).getName(), new ArrayList<>(data.keySet()).get(4));
+    assertEquals(new Blob("...").buf(), data.get(interests.get(4).getName()).getContent().buf());
+  }
+
+  @Test
+  public void testGetAllAsyncAnsweredWhileSending() throws Exception {
+    Face face = new MockFace() {
+      @Override
+      public long expressInterest(Interest interest, OnData onData, OnTimeout onTimeout) {
+        onData.onData(interest, new Data(interest.getName())); // e.g. answered from a local cache
+        return 0;
+      }
+    };
+    List<Interest> interests = new ArrayList<>();
+    for (int i = 0; i < 50000; i++) {
+      interests.add(new Interest(new Name("/test/all/cached").appendSegment(i), 1000));
+    }
+
+    CompletableFuture<Map<Name, Data>> future = new SimpleClient().getAllAsync(face, interests, 1);
+
+    assertTrue(future.isDone());
+    assertEquals(interests.size(), future.get().size());
+  }
+
+  @Test
+  public void testGetAllAsyncFailure() throws Exception {
+    MockFace face = new MockFace();
+    Data response = new Data(new Name("/test/all/found"));
+    face.receive(response);
+
+    CompletableFuture<Map<Name, Data>> future = new SimpleClient(SimpleClient.DEFAULT_SLEEP_TIME, 1)
+        .getAllAsync(face, Arrays.asList(new Name("/test/all/found"), new Name("/test/all/missing")));
+    Thread.sleep(2);
+    face.processEvents();
+
+    assertTrue(future.isCompletedExceptionally());
+    try {
+      future.get();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+  }
+
+  @Test
+  public void testGetAllAsyncFailureRemovesOutstandingInterests() throws Exception {
+    List<Long> removed = new ArrayList<>();
+    MockFace face = new MockFace() {
+      @Override
+      public void removePendingInterest(long pendingInterestId) {
+        removed.add(pendingInterestId);
+        super.removePendingInterest(pendingInterestId);
+      }
+    };
+
+    List<Interest> interests = Arrays.asList(new Interest(new Name("/test/all/missing"), 1), new Interest(new Name("/test/all/slow"), 10000), new Interest(new Name("/test/all/unsent"), 10000));
+    CompletableFuture<Map<Name, Data>> future = new SimpleClient().getAllAsync(face, interests, 2);
+    Thread.sleep(2);
+    face.processEvents();
+
+    assertTrue(future.isCompletedExceptionally());
+    assertEquals(1, removed.size()); // the slow Interest; the missing one timed out and the last was never sent
+    assertEquals(2, face.sentInterests.size());
+  }
+
+  @Test
+  public void testCoalescing() throws Exception {
+    MockFace face = new MockFace();
+    SimpleClient client = new SimpleClient(SimpleClient.DEFAULT_SLEEP_TIME, SimpleClient.DEFAULT_TIMEOUT, true);
+    Name name = new Name("/test/coalesced");
+
+    CompletableFuture<Data> first = client.getAsync(face, name);
+    CompletableFuture<Data> second = client.getAsync(face, new Interest(name, 500));
+    Interest rightmost = new Interest(name);
+    rightmost.setChildSelector(1);
+    CompletableFuture<Data> third = client.getAsync(face, rightmost);
+    assertEquals(2, face.sentInterests.size()); // the second request joined the first
+    assertTrue(first != second);
+
+    first.cancel(true); // a requester's own future does not affect the others
+
+    Data response = new Data(name);
+    response.setContent(new Blob("..."));
+    face.receive(response);
+    face.processEvents();
+    assertEquals(new Blob("...").buf(), second.get().getContent().buf());
+    assertTrue(first.isCancelled());
+
+    client.getAsync(face, name);
+    assertEquals(3, face.sentInterests.size());
+  }
+
+  @Test
+  public void testCoalescingWithAdaptiveInterestLifetime() throws Exception {
+    MockFace face = new MockFace();
+    Name name = new Name("/test/coalesced/adaptive");
+    DefaultRttEstimator estimator = new DefaultRttEstimator();
+    SimpleClient client = new SimpleClient(SimpleClient.DEFAULT_SLEEP_TIME, estimator, true);
+
+    CompletableFuture<Data> first = client.getAsync(face, name);
+    CompletableFuture<Data> second = client.getAsync(face, name);
+    assertEquals(1, face.sentInterests.size());
+    assertEquals(DefaultRttEstimator.DEFAULT_INITIAL_RTO, face.sentInterests.get(0).getInterestLifetimeMilliseconds(), 0.1);
+
+    face.receive(new Data(name));
+    face.processEvents();
+    assertTrue(first.isDone() && second.isDone());
+    assertEquals(DefaultRttEstimator.DEFAULT_MIN_RTO, client.getDefaultInterest(name).getInterestLifetimeMilliseconds(), 0.1);
+  }
+
+  @Test
+  public void testGetSyncJoinsEventLoop() throws Exception {
+    Set<Thread> drivers = new CopyOnWriteArraySet<>();
+    MockFace face = new MockFace() {
+      @Override
+      public void processEvents() throws IOException, EncodingException {
+        drivers.add(Thread.currentThread());
+        super.processEvents();
+      }
+    };
+    DefaultFaceEventLoop loop = DefaultFaceEventLoop.start(face);
+    try {
+      Data response = new Data(new Name("/test/driven"));
+      response.setContent(new Blob("..."));
+      face.onSendInterest.add(interest -> { // the mock drops packets received before it connects
+        try {
+          face.receive(response);
+        } catch (EncodingException e) {
+          fail(e.getMessage());
+        }
+      });
+
+      Data data = new SimpleClient().getSync(face, new Name("/test/driven"));
+      assertEquals(new Blob("...").buf(), data.getContent().buf());
+      assertFalse(drivers.contains(Thread.currentThread()));
+    } finally {
+      loop.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetSyncKeepsInterruptStatus() throws Exception {
+    MockFace face = new MockFace();
+    FaceSelector selector = FaceSelector.shared(face);
+    Thread waiter = new Thread(() -> {
+      try {
+        selector.await(5000); // so the caller waits on its own request, which clears the interrupt status
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Failed to wait on the selector.", e);
+      }
+    });
+    waiter.start();
+    Thread.sleep(50);
+
+    Thread.currentThread().interrupt();
+    try {
+      new SimpleClient().getSync(face, new Name("/test/interrupted"));
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertTrue(e.getCause() instanceof InterruptedException);
+    } finally {
+      assertTrue(Thread.interrupted()); // also clears the status for the other tests
+      selector.wakeup();
+      waiter.join();
+    }
+  }
+
   @Test(expected = IOException.class)
   public void testSyncFailureToRetrieve() throws IOException {
     logger.info("Client expressing interest synchronously: /test/no-data");
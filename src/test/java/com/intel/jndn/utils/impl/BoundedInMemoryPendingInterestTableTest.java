@@ -14,21 +14,28 @@
 
 package com.intel.jndn.utils.impl;
 
+import com.intel.jndn.utils.PendingInterestTable;
 import net.named_data.jndn.Interest;
 import net.named_data.jndn.Name;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 
 /**
  * @author Andrew Brown, andrew.brown@intel.com
  */
-public class BoundedInMemoryPendingInterestTableTest {
+public class BoundedInMemoryPendingInterestTableTest extends PendingInterestTableTest {
 
   private BoundedInMemoryPendingInterestTable instance;
 
@@ -37,6 +44,11 @@ public class BoundedInMemoryPendingInterestTableTest {
     instance = new BoundedInMemoryPendingInterestTable(5);
   }
 
+  @Override
+  PendingInterestTable newTable(int maxSize) {
+    return new BoundedInMemoryPendingInterestTable(maxSize);
+  }
+
   @Test
   public void add() throws Exception {
     Name name = new Name("/a/b/c");
@@ -45,13 +57,14 @@ public class BoundedInMemoryPendingInterestTableTest {
   }
 
   @Test
-  public void has() throws Exception {
-    Name name = new Name("/a/b/c");
-    instance.add(new Interest(name));
-
+  public void remove() throws Exception {
     Interest interest = new Interest(new Name("/a/b"));
-    interest.setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
-    assertTrue(instance.has(interest));
+    instance.add(interest);
+
+    assertFalse(instance.remove(new Interest(new Name("/a/b"))));
+    assertTrue(instance.remove(interest));
+    assertFalse(instance.has(new Name("/a/b")));
+    assertFalse(instance.remove(interest));
   }
 
   @Test
@@ -62,5 +75,66 @@ public class BoundedInMemoryPendingInterestTableTest {
 
     Collection<Interest> extracted = instance.extract(new Name("/a/b"));
     assertEquals(2, extracted.size()); // TODO not sure about this...
+    assertFalse(instance.has(new Name("/a/b")));
+    assertTrue(instance.has(new Name("/a/b/c")));
+  }
+
+  @Test
+  public void cancelsExpirationOfDroppedEntries() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      instance.add(new Interest(new Name("/a/" + i), 10000)); // evicts beyond 5
+      instance.add(new Interest(new Name("/a/" + i), 10000)); // replaces
+    }
+    assertEquals(5, instance.scheduled());
+
+    instance.extract(new Name("/a/19"));
+    Interest interest = new Interest(new Name("/a/18"), 10000);
+    instance.add(interest);
+    instance.remove(interest);
+    assertEquals(3, instance.scheduled());
+  }
+
+  @Test
+  public void extractOnlyVisitsPrefixes() throws Exception {
+    instance.add(new Interest(new Name("/a/b/c/d"), 10000));
+    instance.add(new Interest(new Name("/a/x"), 10000));
+
+    assertEquals(1, instance.extract(new Name("/a/b/c/d/e")).size());
+    assertTrue(instance.extract(new Name("/a/b/c")).isEmpty());
+    assertTrue(instance.has(new Name("/a/x")));
+  }
+
+  @Test
+  public void concurrentAddAndExtract() throws Exception {
+    BoundedInMemoryPendingInterestTable table = new BoundedInMemoryPendingInterestTable(1000);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int thread = t;
+      futures.add(pool.submit(() -> {
+        int extracted = 0;
+        for (int i = 0; i < 500; i++) {
+          Name name = new Name("/" + thread + "/" + i);
+          table.add(new Interest(name, 10000));
+          extracted += table.extract(new Name(name).append("segment")).size();
+        }
+        return extracted;
+      }));
+    }
+    for (Future<Integer> future : futures) {
+      assertEquals(500, (int) future.get());
+    }
+    pool.shutdown();
+    assertEquals(0, table.scheduled());
+  }
+
+  @Test
+  public void expiresAfterLifetime() throws Exception {
+    instance.add(new Interest(new Name("/a/b"), 1));
+    instance.add(new Interest(new Name("/a/c"), 10000));
+    Thread.sleep(20);
+
+    assertFalse(instance.has(new Name("/a/b")));
+    assertTrue(instance.has(new Name("/a/c")));
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.NameTree;
+import com.intel.jndn.utils.SortedNameTree;
+import net.named_data.jndn.Name;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class CompactNameTreeTest {
+  private SortedNameTree<String> instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = CompactNameTree.newRootTree();
+    for (int i : new int[]{5, 1, 300, 42, 2}) {
+      instance.insert(new Name("/a").appendSegment(i), Integer.toString(i));
+    }
+    instance.insert(new Name("/b"), "b");
+    instance.insert(new Name("/a-component-too-long-to-inline/c"), "long");
+  }
+
+  @Test
+  public void find() throws Exception {
+    assertEquals("/a/%00%01", instance.find(new Name("/a/%00%01")).get().fullName().toString());
+    assertEquals("long", instance.find(new Name("/a-component-too-long-to-inline/c")).get().content().get());
+    assertEquals("/a-component-too-long-to-inline", instance.lookup(new Name("/a-component-too-long-to-inline"), 1).fullName().toString());
+    assertFalse(instance.find(new Name("/a/x")).isPresent());
+    assertNull(instance.child(new Name.Component("a-component-too-long-to-inlinf")));
+  }
+
+  @Test
+  public void orderedChildren() throws Exception {
+    SortedNameTree<String> a = (SortedNameTree<String>) instance.find(new Name("/a")).get();
+    assertEquals("[1, 2, 5, 42, 300]", contents(a.ascendingChildren()).toString());
+    assertEquals("[300, 42, 5, 2, 1]", contents(a.descendingChildren()).toString());
+    assertEquals("[2, 5, 42]", contents(a.children(Name.Component.fromSegment(1), false, Name.Component.fromSegment(42), true)).toString());
+    assertEquals("42", a.ceiling(Name.Component.fromSegment(6)).content().get());
+    assertEquals("5", a.floor(Name.Component.fromSegment(6)).content().get());
+    assertNull(a.ceiling(Name.Component.fromSegment(301)));
+    assertEquals("/a", instance.first().fullName().toString());
+    assertEquals("/a-component-too-long-to-inline", instance.last().fullName().toString());
+  }
+
+  @Test
+  public void childrenAreSnapshots() throws Exception {
+    SortedNameTree<String> a = instance.lookup(new Name("/a"), 1);
+    Collection<SortedNameTree<String>> ascending = a.ascendingChildren();
+    Collection<SortedNameTree<String>> descending = a.descendingChildren();
+    List<SortedNameTree<String>> expected = new ArrayList<>(ascending);
+
+    instance.insert(new Name("/a").appendSegment(0), "0");
+    instance.delete(new Name("/a").appendSegment(2));
+
+    assertEquals(expected, new ArrayList<>(ascending));
+    Collections.reverse(expected);
+    assertEquals(expected, new ArrayList<>(descending));
+  }
+
+  @Test
+  public void matchesCanonicalOrder() throws Exception {
+    SortedNameTree<String> expected = DefaultSortedNameTree.newRootTree();
+    SortedNameTree<String> actual = CompactNameTree.newRootTree();
+    Random random = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      byte[] bytes = new byte[random.nextInt(12)];
+      random.nextBytes(bytes);
+      Name name = new Name().append(bytes);
+      expected.insert(name, name.toUri());
+      actual.insert(name, name.toUri());
+    }
+
+    assertEquals(contents(expected.ascendingChildren()), contents(actual.ascendingChildren()));
+    assertEquals(expected.count(), actual.count());
+    for (NameTree<String> child : expected.children()) {
+      assertEquals(child.fullName(), actual.find(child.fullName()).get().fullName());
+    }
+  }
+
+  @Test
+  public void deletePrunesEmptyAncestors() throws Exception {
+    assertEquals(7, instance.count());
+    instance.delete(new Name("/a-component-too-long-to-inline/c"));
+    assertFalse(instance.find(new Name("/a-component-too-long-to-inline")).isPresent());
+
+    assertTrue(instance.deleteSubtree(new Name("/a")).isPresent());
+    assertEquals(1, instance.count());
+    assertEquals(1, instance.children().size());
+
+    instance.clear();
+    assertEquals(0, instance.count());
+    assertTrue(instance.children().isEmpty());
+  }
+
+  @Test
+  public void weight() throws Exception {
+    NameTree<String> weighed = CompactNameTree.newRootTree(String::length, null);
+    weighed.insert(new Name("/a/b"), "..");
+    weighed.insert(new Name("/a/c"), "...");
+    assertEquals(5, weighed.weight());
+    weighed.insert(new Name("/a/c"), ".");
+    weighed.delete(new Name("/a/b"));
+    assertEquals(1, weighed.weight());
+    assertEquals(1, weighed.count());
+  }
+
+  @Test
+  public void internPool() throws Exception {
+    CompactNameTree.InternPool pool = new CompactNameTree.InternPool(2);
+    NameTree<String> tree = CompactNameTree.newRootTree(content -> 0, pool);
+    for (int i = 0; i < 10; i++) {
+      tree.insert(new Name("/device-" + i + "/temperature-sensor/reading-0000" + i), "...");
+    }
+    assertEquals(11, pool.size());
+    assertEquals(10, tree.count());
+  }
+
+  private static List<String> contents(Iterable<? extends NameTree<String>> nodes) {
+    List<String> contents = new ArrayList<>();
+    for (NameTree<String> node : nodes) {
+      contents.add(node.content().get());
+    }
+    return contents;
+  }
+}
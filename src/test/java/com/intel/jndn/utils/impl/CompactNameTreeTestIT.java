@@ -0,0 +1,68 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.NameTree;
+import net.named_data.jndn.Name;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measure the heap footprint of {@link CompactNameTree}; builds large trees and
+ * relies on {@link System#gc()}, so it is not run with the unit tests
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class CompactNameTreeTestIT {
+  private static final Logger LOGGER = Logger.getLogger(CompactNameTreeTestIT.class.getName());
+  private static final int NUM_NAMES = 100000;
+
+  @Test
+  public void testFootprintAgainstDefaultNameTree() {
+    double defaultBytes = measureBytesPerEntry(DefaultNameTree::newRootTree);
+    double sortedBytes = measureBytesPerEntry(DefaultSortedNameTree::newRootTree);
+    double compactBytes = measureBytesPerEntry(CompactNameTree::newRootTree);
+    LOGGER.log(Level.INFO, "Bytes per entry: default {0}, sorted {1}, compact {2}", new Object[]{defaultBytes, sortedBytes, compactBytes});
+
+    assertTrue("Compact tree uses " + compactBytes + " bytes per entry, default tree " + defaultBytes, compactBytes < defaultBytes * 0.75);
+    assertTrue("Compact tree uses " + compactBytes + " bytes per entry, sorted tree " + sortedBytes, compactBytes < sortedBytes * 0.75);
+  }
+
+  private static double measureBytesPerEntry(Supplier<NameTree<Object>> factory) {
+    Object content = new Object();
+    long before = usedMemory();
+    NameTree<Object> tree = factory.get();
+    for (int i = 0; i < NUM_NAMES; i++) {
+      tree.insert(new Name("/org/example/app/messages").appendSequenceNumber(i / 10).appendSegment(i % 10), content);
+    }
+    long after = usedMemory();
+    assertSame(content, tree.find(new Name("/org/example/app/messages").appendSequenceNumber(0).appendSegment(0)).get().content().get());
+    return Math.round((after - before) / (double) NUM_NAMES);
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test ConcurrentBoundedLinkedMap
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class ConcurrentBoundedLinkedMapTest {
+  private ConcurrentBoundedLinkedMap<String, Object> instance;
+
+  @Before
+  public void beforeTest() {
+    instance = new ConcurrentBoundedLinkedMap<>(2);
+  }
+
+  @Test
+  public void testUsage() {
+    Object object0 = new Object();
+    instance.put("0", object0);
+    instance.put("1", new Object());
+    assertEquals(2, instance.size());
+
+    instance.put("2", new Object());
+    assertEquals(2, instance.size());
+    assertNull(instance.get("0"));
+    assertEquals("2", instance.latest());
+  }
+
+  @Test
+  public void testEvictionListener() {
+    List<String> evicted = new ArrayList<>();
+    ConcurrentBoundedLinkedMap<String, Integer> map = new ConcurrentBoundedLinkedMap<>(2, (key, value) -> evicted.add(key + "=" + value));
+    map.put("a", 1);
+    map.put("b", 2);
+    map.put("a", 3); // replacing a key is not an eviction
+    map.remove("b");
+    map.put("c", 4);
+    assertTrue(evicted.isEmpty());
+
+    map.put("d", 5);
+    assertEquals(Arrays.asList("a=3"), evicted);
+  }
+
+  @Test
+  public void testEarliestLatest() {
+    assertNull(instance.earliest());
+    assertNull(instance.latest());
+
+    instance.put(".", new Object());
+    assertEquals(instance.earliest(), instance.latest());
+
+    instance.put("..", new Object());
+    assertEquals(".", instance.earliest());
+    assertEquals("..", instance.latest());
+
+    instance.put(".", new Object());
+    assertEquals("..", instance.earliest());
+    assertEquals(".", instance.latest());
+
+    instance.remove(".");
+    assertEquals("..", instance.earliest());
+    assertEquals("..", instance.latest());
+
+    instance.clear();
+    assertNull(instance.earliest());
+    assertTrue(instance.isEmpty());
+  }
+
+  @Test
+  public void testConditionalWrites() {
+    Object o = new Object();
+    assertNull(instance.putIfAbsent("...", o));
+    assertEquals(o, instance.putIfAbsent("...", new Object()));
+    assertFalse(instance.remove("...", new Object()));
+    assertTrue(instance.remove("...", o));
+    assertNull(instance.replace("...", o));
+    assertFalse(instance.containsKey("..."));
+  }
+
+  @Test
+  public void testWeaklyConsistentIteration() {
+    ConcurrentBoundedLinkedMap<Integer, Integer> map = new ConcurrentBoundedLinkedMap<>(10);
+    for (int i = 0; i < 5; i++) {
+      map.put(i, i);
+    }
+
+    List<Integer> seen = new ArrayList<>();
+    Iterator<Integer> keys = map.keySet().iterator();
+    seen.add(keys.next());
+    map.remove(1);
+    map.put(5, 5);
+    while (keys.hasNext()) {
+      seen.add(keys.next());
+    }
+    assertEquals(Arrays.asList(0, 2, 3, 4, 5), seen);
+
+    Iterator<Integer> values = map.values().iterator();
+    values.next();
+    values.remove();
+    assertEquals(Integer.valueOf(2), map.earliest());
+    assertEquals(4, map.size());
+  }
+
+  @Test
+  public void testConcurrentWriters() throws Exception {
+    ConcurrentBoundedLinkedMap<Integer, Integer> map = new ConcurrentBoundedLinkedMap<>(100);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 3; t++) {
+      int writer = t;
+      futures.add(pool.submit(() -> {
+        for (int i = 0; i < 10000; i++) {
+          map.put(writer * 10000 + i, i);
+          map.remove(writer * 10000 + i - 50);
+        }
+      }));
+    }
+    futures.add(pool.submit(() -> {
+      for (int i = 0; i < 1000; i++) {
+        for (Integer key : map.keySet()) {
+          map.get(key);
+        }
+      }
+    }));
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    assertTrue(map.size() <= 100);
+    int count = 0;
+    for (Integer ignored : map.keySet()) {
+      count++;
+    }
+    assertEquals(map.size(), count);
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.SortedNameTree;
+import net.named_data.jndn.Name;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class ConcurrentNameTreeTest {
+
+  private SortedNameTree<String> instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = ConcurrentNameTree.newRootTree();
+    instance.insert(new Name("/a/b/c"), ".");
+    instance.insert(new Name("/a/b/d"), "..");
+    instance.insert(new Name("/a/e"), "...");
+  }
+
+  @Test
+  public void find() throws Exception {
+    assertEquals("/a/b/c", instance.find(new Name("/a/b/c")).get().fullName().toString());
+    assertEquals(2, instance.find(new Name("/a/b")).get().children().size());
+    assertFalse(instance.find(new Name("/a/x")).isPresent());
+    assertNull(instance.lookup(new Name("/a/b/c/d"), 4));
+  }
+
+  @Test
+  public void ordering() throws Exception {
+    SortedNameTree<String> b = instance.lookup(new Name("/a/b"), 2);
+    assertEquals(".", b.first().content().get());
+    assertEquals("..", b.last().content().get());
+    assertEquals("..", b.descendingChildren().iterator().next().content().get());
+  }
+
+  @Test
+  public void count() throws Exception {
+    assertEquals(3, instance.count());
+    assertEquals(2, instance.find(new Name("/a/b")).get().count());
+
+    SortedNameTree<String> weighed = ConcurrentNameTree.newRootTree(String::length);
+    weighed.insert(new Name("/a/b/c"), ".");
+    weighed.insert(new Name("/a/e"), "...");
+    assertEquals(4, weighed.weight());
+    assertEquals(1, weighed.find(new Name("/a/b")).get().weight());
+  }
+
+  @Test
+  public void delete() throws Exception {
+    assertTrue(instance.delete(new Name("/a/b/c")).isPresent());
+    assertFalse(instance.find(new Name("/a/b/c")).isPresent());
+    instance.delete(new Name("/a/b/d"));
+    assertFalse(instance.find(new Name("/a/b")).isPresent());
+
+    instance.insert(new Name("/a/b/c"), ".");
+    assertTrue(instance.deleteSubtree(new Name("/a/b")).isPresent());
+    assertFalse(instance.find(new Name("/a/b/c")).isPresent());
+    assertTrue(instance.find(new Name("/a/e")).isPresent());
+    assertFalse(instance.deleteSubtree(new Name("/a/b")).isPresent());
+
+    instance.clear();
+    assertTrue(instance.children().isEmpty());
+  }
+
+  @Test
+  public void concurrentInsertsAndDeletes() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 3; t++) {
+      int writer = t;
+      futures.add(pool.submit(() -> {
+        for (int i = 0; i < 2000; i++) {
+          Name name = new Name("/x").appendSegment(writer).appendSegment(i);
+          instance.insert(name, name.toUri());
+          if (i % 2 == 0) {
+            instance.delete(name);
+          }
+        }
+      }));
+    }
+    futures.add(pool.submit(() -> {
+      for (int i = 0; i < 2000; i++) {
+        instance.lookup(new Name("/x").appendSegment(0).appendSegment(i), 3);
+      }
+    }));
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    for (int t = 0; t < 3; t++) {
+      assertEquals(1000, instance.lookup(new Name("/x").appendSegment(t), 2).children().size());
+    }
+  }
+
+  @Test
+  public void concurrentPruning() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int writer = t;
+      futures.add(pool.submit(() -> {
+        for (int i = 0; i < 2000; i++) {
+          Name name = new Name("/y").appendSegment(i % 8).appendSegment(writer);
+          instance.insert(name, name.toUri());
+          if (i < 1992) {
+            instance.delete(name);
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    // each writer leaves its last eight inserts; pruning racing with them must not lose any
+    assertEquals(32, instance.lookup(new Name("/y"), 1).count());
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.mock.MockFace;
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Face;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import net.named_data.jndn.encoding.EncodingException;
+import net.named_data.jndn.util.Blob;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class DefaultFaceEventLoopTest {
+  private DefaultFaceEventLoop instance;
+
+  @After
+  public void tearDown() throws Exception {
+    if (instance != null) {
+      instance.shutdown();
+    }
+  }
+
+  @Test
+  public void submitRunsOnTheLoopThread() throws Exception {
+    instance = DefaultFaceEventLoop.start(new MockFace());
+    assertTrue(instance.submit(instance::inEventLoop).get(1, TimeUnit.SECONDS));
+    assertTrue(!instance.inEventLoop());
+  }
+
+  @Test
+  public void scheduledTasksRunInDeadlineOrder() throws Exception {
+    instance = DefaultFaceEventLoop.start(new MockFace());
+    List<String> order = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(2);
+    instance.schedule(() -> {
+      order.add("later");
+      done.countDown();
+    }, 60);
+    instance.schedule(() -> {
+      order.add("sooner");
+      done.countDown();
+    }, 20);
+
+    assertTrue(done.await(1, TimeUnit.SECONDS));
+    assertEquals("[sooner, later]", order.toString());
+  }
+
+  @Test
+  public void processesFaceEvents() throws Exception {
+    MockFace face = new MockFace();
+    instance = DefaultFaceEventLoop.start(face);
+    Data data = new Data(new Name("/test/loop"));
+    data.setContent(new Blob("..."));
+    face.onSendInterest.add(interest -> { // the mock drops packets received before it connects
+      try {
+        face.receive(data);
+      } catch (EncodingException e) {
+        fail(e.getMessage());
+      }
+    });
+
+    CompletableFuture<Data> received = new CompletableFuture<>();
+    instance.execute(() -> {
+      try {
+        face.expressInterest(new Interest(new Name("/test/loop")), (interest, d) -> received.complete(d));
+      } catch (IOException e) {
+        received.completeExceptionally(e);
+      }
+    });
+    assertEquals("/test/loop", received.get(1, TimeUnit.SECONDS).getName().toUri());
+  }
+
+  @Test
+  public void firesTimersOfAnUnconnectedFace() throws Exception {
+    try (ServerSocket server = new ServerSocket(0)) {
+      Face face = new Face("localhost", server.getLocalPort()); // connects only once an Interest is expressed
+      instance = DefaultFaceEventLoop.start(face);
+
+      CountDownLatch fired = new CountDownLatch(1);
+      instance.execute(() -> face.callLater(20, fired::countDown));
+      assertTrue(fired.await(1, TimeUnit.SECONDS));
+      face.shutdown();
+    }
+  }
+
+  @Test
+  public void survivesFailingEventProcessing() throws Exception {
+    AtomicInteger failures = new AtomicInteger();
+    MockFace face = new MockFace() {
+      @Override
+      public void processEvents() throws IOException, EncodingException {
+        if (failures.getAndIncrement() < 3) {
+          throw new IllegalStateException("Not connected");
+        }
+        super.processEvents();
+      }
+    };
+    instance = DefaultFaceEventLoop.start(face);
+    Thread.sleep(100);
+    assertTrue(instance.submit(() -> true).get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void logsRepeatedFailuresOnceAsSevere() throws Exception {
+    List<Level> levels = new CopyOnWriteArrayList<>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        levels.add(record.getLevel());
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    Logger logger = Logger.getLogger(DefaultFaceEventLoop.class.getName());
+    Level previous = logger.getLevel();
+    logger.setLevel(Level.ALL);
+    logger.addHandler(handler);
+    try {
+      AtomicInteger calls = new AtomicInteger();
+      MockFace face = new MockFace() {
+        @Override
+        public void processEvents() throws IOException, EncodingException {
+          if (calls.incrementAndGet() <= 5) {
+            throw new IllegalStateException("Not connected");
+          }
+        }
+      };
+      instance = DefaultFaceEventLoop.start(face);
+      for (int i = 0; i < 100 && calls.get() <= 5; i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(Arrays.asList(Level.SEVERE, Level.FINE, Level.FINE, Level.FINE, Level.FINE), levels);
+    } finally {
+      logger.removeHandler(handler);
+      logger.setLevel(previous);
+    }
+  }
+
+  @Test
+  public void shutdownFailsPendingAndLaterSubmissions() throws Exception {
+    instance = DefaultFaceEventLoop.start(new MockFace());
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    instance.execute(() -> {
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    assertTrue(blocked.await(1, TimeUnit.SECONDS));
+
+    List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      pending.add(instance.submit(() -> true));
+    }
+    instance.shutdown();
+    release.countDown();
+    CompletableFuture<Boolean> after = instance.submit(() -> true);
+
+    for (CompletableFuture<Boolean> future : pending) {
+      assertRejected(future);
+    }
+    assertRejected(after);
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void executeAfterShutdownThrows() throws Exception {
+    instance = DefaultFaceEventLoop.start(new MockFace());
+    instance.shutdown();
+    instance.execute(() -> {
+    });
+  }
+
+  private static void assertRejected(CompletableFuture<?> future) throws Exception {
+    try {
+      future.get(1, TimeUnit.SECONDS);
+      fail("The submission should have been rejected");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+  }
+
+  @Test
+  public void idleLoopDoesNotSpin() throws Exception {
+    AtomicInteger iterations = new AtomicInteger();
+    MockFace face = new MockFace() {
+      @Override
+      public void processEvents() throws IOException, EncodingException {
+        iterations.incrementAndGet();
+        super.processEvents();
+      }
+    };
+    instance = DefaultFaceEventLoop.start(face);
+    Thread.sleep(200);
+    assertTrue("Too many iterations: " + iterations.get(), iterations.get() < 40);
+  }
+
+  @Test
+  public void wakesWhenBytesArriveWithChannelSelection() throws Exception {
+    System.setProperty(FaceSelector.SELECT_CHANNEL_PROPERTY, "true");
+    try (ServerSocket server = new ServerSocket(0)) {
+      Face face = new Face("localhost", server.getLocalPort());
+      instance = new DefaultFaceEventLoop(face, 5000); // only a selector wakeup can deliver the data in time
+      System.clearProperty(FaceSelector.SELECT_CHANNEL_PROPERTY);
+      Thread thread = new Thread(instance);
+      thread.setDaemon(true);
+      thread.start();
+
+      Name name = new Name("/test/socket");
+      CompletableFuture<Data> received = new CompletableFuture<>();
+      instance.submit(() -> face.expressInterest(new Interest(name, 10000), (interest, d) -> received.complete(d))).get(1, TimeUnit.SECONDS);
+
+      try (Socket socket = server.accept()) {
+        socket.setSoTimeout(1000);
+        socket.getInputStream().read(new byte[8800]); // the Interest
+        Thread.sleep(100); // let the loop block
+        Data data = new Data(name);
+        data.setContent(new Blob("..."));
+        ByteBuffer encoded = data.wireEncode().buf();
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+
+        long start = System.nanoTime();
+        OutputStream out = socket.getOutputStream();
+        out.write(bytes);
+        out.flush();
+        assertEquals(name, received.get(1, TimeUnit.SECONDS).getName());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+      }
+      instance.shutdown();
+      thread.join(1000);
+      face.shutdown();
+    } finally {
+      System.clearProperty(FaceSelector.SELECT_CHANNEL_PROPERTY);
+    }
+  }
+}
@@ -20,7 +20,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Andrew Brown, andrew.brown@intel.com
@@ -76,16 +78,110 @@ public class DefaultNameTreeTest {
 
   @Test
   public void insert() throws Exception {
-    // TODO
+    NameTree<String> inserted = instance.insert(new Name("/a/b/x/y"), "....");
+    assertEquals("/a/b/x/y", inserted.fullName().toString());
+    assertEquals("....", instance.find(new Name("/a/b/x/y")).get().content().get());
+    assertFalse(instance.find(new Name("/a/b/x")).get().content().isPresent());
+    assertEquals(".", instance.find(new Name("/a/b/c")).get().content().get());
+  }
+
+  @Test
+  public void lookup() throws Exception {
+    Name name = new Name("/a/b/c/not/inserted");
+    assertEquals("/a/b", instance.lookup(name, 2).fullName().toString());
+    assertEquals(".", instance.lookup(name, 3).content().get());
+    assertNull(instance.lookup(name, 4));
+    assertEquals(instance, instance.lookup(name, 0));
+  }
+
+  @Test
+  public void child() throws Exception {
+    NameTree<String> a = instance.child(new Name.Component("a"));
+    assertEquals("...", a.child(new Name.Component("e")).content().get());
+    assertNull(a.child(new Name.Component("x")));
   }
 
   @Test
   public void delete() throws Exception {
-    // TODO
+    assertEquals("/a/b/c", instance.delete(new Name("/a/b/c")).get().fullName().toString());
+    assertFalse(instance.find(new Name("/a/b/c")).isPresent());
+    assertTrue(instance.find(new Name("/a/b/d")).isPresent());
+    assertTrue(instance.find(new Name("/a/e")).isPresent());
+
+    assertFalse(instance.delete(new Name("/a/x")).isPresent());
+    assertFalse(instance.delete(new Name()).isPresent());
+  }
+
+  @Test
+  public void deletePrunesEmptyAncestors() throws Exception {
+    instance.insert(new Name("/x/y/z"), "....");
+    instance.delete(new Name("/x/y/z"));
+    assertFalse(instance.find(new Name("/x")).isPresent());
+
+    instance.insert(new Name("/a/b"), "....");
+    instance.delete(new Name("/a/b"));
+    assertTrue(instance.find(new Name("/a/b/c")).isPresent());
+    assertFalse(instance.find(new Name("/a/b")).get().content().isPresent());
+
+    instance.delete(new Name("/a/b/c"));
+    instance.delete(new Name("/a/b/d"));
+    assertFalse(instance.find(new Name("/a/b")).isPresent());
+    assertTrue(instance.find(new Name("/a/e")).isPresent());
+
+    instance.delete(new Name("/a/e"));
+    assertTrue(instance.children().isEmpty());
+  }
+
+  @Test
+  public void deleteSubtree() throws Exception {
+    assertEquals("/a/b", instance.deleteSubtree(new Name("/a/b")).get().fullName().toString());
+    assertFalse(instance.find(new Name("/a/b/c")).isPresent());
+    assertEquals(1, instance.count());
+
+    instance.deleteSubtree(new Name("/a/e"));
+    assertTrue(instance.children().isEmpty());
+    assertFalse(instance.deleteSubtree(new Name("/a")).isPresent());
   }
 
   @Test
   public void count() throws Exception {
-    // TODO
+    assertEquals(3, instance.count());
+    assertEquals(2, instance.find(new Name("/a/b")).get().count());
+    assertEquals(1, instance.find(new Name("/a/b/c")).get().count());
+
+    instance.insert(new Name("/a/b"), "....");
+    instance.insert(new Name("/a/b/c"), "replaced");
+    assertEquals(4, instance.count());
+    assertEquals(3, instance.find(new Name("/a/b")).get().count());
+
+    instance.delete(new Name("/a/b"));
+    assertEquals(3, instance.count());
+
+    instance.deleteSubtree(new Name("/a/b"));
+    assertEquals(1, instance.count());
+
+    instance.clear();
+    assertEquals(0, instance.count());
+  }
+
+  @Test
+  public void weight() throws Exception {
+    NameTree<String> weighed = DefaultNameTree.newRootTree(String::length);
+    weighed.insert(new Name("/a/b/c"), ".");
+    weighed.insert(new Name("/a/b/d"), "..");
+    weighed.insert(new Name("/a/e"), "...");
+    assertEquals(6, weighed.weight());
+    assertEquals(3, weighed.find(new Name("/a/b")).get().weight());
+
+    weighed.insert(new Name("/a/b/c"), "....");
+    assertEquals(9, weighed.weight());
+
+    weighed.insert(new Name("/a/b/c"), null);
+    assertEquals(5, weighed.weight());
+    assertEquals(2, weighed.count());
+
+    weighed.delete(new Name("/a/e"));
+    assertEquals(2, weighed.weight());
+    assertEquals(0, instance.weight());
   }
 }
\ No newline at end of file
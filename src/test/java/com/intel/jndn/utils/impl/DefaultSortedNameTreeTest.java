@@ -0,0 +1,90 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.NameTree;
+import com.intel.jndn.utils.SortedNameTree;
+import net.named_data.jndn.Name;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class DefaultSortedNameTreeTest {
+
+  private SortedNameTree<String> instance;
+
+  @Before
+  public void setUp() throws Exception {
+    instance = DefaultSortedNameTree.newRootTree();
+    for (int i : new int[]{5, 1, 300, 42, 2}) {
+      instance.insert(new Name("/a").appendSegment(i), Integer.toString(i));
+    }
+    instance.insert(new Name("/b"), "b");
+  }
+
+  @Test
+  public void firstAndLast() throws Exception {
+    SortedNameTree<String> a = (SortedNameTree<String>) instance.find(new Name("/a")).get();
+    assertEquals("1", a.first().content().get());
+    assertEquals("300", a.last().content().get());
+    assertNull(a.first().first());
+  }
+
+  @Test
+  public void ceilingAndFloor() throws Exception {
+    SortedNameTree<String> a = (SortedNameTree<String>) instance.find(new Name("/a")).get();
+    assertEquals("42", a.ceiling(Name.Component.fromSegment(6)).content().get());
+    assertEquals("5", a.floor(Name.Component.fromSegment(6)).content().get());
+    assertNull(a.ceiling(Name.Component.fromSegment(301)));
+  }
+
+  @Test
+  public void orderedChildren() throws Exception {
+    SortedNameTree<String> a = (SortedNameTree<String>) instance.find(new Name("/a")).get();
+    assertEquals("[1, 2, 5, 42, 300]", contents(a.ascendingChildren()).toString());
+    assertEquals("[300, 42, 5, 2, 1]", contents(a.descendingChildren()).toString());
+    assertEquals("[2, 5, 42]", contents(a.children(Name.Component.fromSegment(1), false, Name.Component.fromSegment(42), true)).toString());
+    assertEquals(5, a.children().size());
+  }
+
+  @Test
+  public void childrenAreViews() throws Exception {
+    SortedNameTree<String> root = instance;
+    List<SortedNameTree<String>> children = new ArrayList<>(root.ascendingChildren());
+    assertEquals(2, children.size());
+
+    instance.insert(new Name("/c"), "c");
+    assertEquals(3, root.ascendingChildren().size());
+    assertTrue(root.last() instanceof SortedNameTree);
+    assertEquals("c", root.last().content().get());
+  }
+
+  private static List<String> contents(Iterable<? extends NameTree<String>> nodes) {
+    List<String> contents = new ArrayList<>();
+    for (NameTree<String> node : nodes) {
+      contents.add(node.content().get());
+    }
+    return contents;
+  }
+}
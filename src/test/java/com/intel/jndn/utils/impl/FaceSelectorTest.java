@@ -0,0 +1,73 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.mock.MockFace;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class FaceSelectorTest {
+
+  @Test
+  public void sharedSelectorIsReusedPerFace() throws Exception {
+    MockFace face = new MockFace();
+    assertSame(FaceSelector.shared(face), FaceSelector.shared(face));
+    assertNotSame(FaceSelector.shared(face), FaceSelector.shared(new MockFace()));
+  }
+
+  @Test
+  public void tryAwaitReturnsWhileAnotherThreadWaits() throws Exception {
+    FaceSelector selector = FaceSelector.shared(new MockFace());
+    CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+      try {
+        return selector.tryAwait(5000);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    Thread.sleep(200); // let the other thread start waiting
+
+    long start = System.currentTimeMillis();
+    assertFalse(selector.tryAwait(5000));
+    assertTrue(System.currentTimeMillis() - start < 1000);
+    assertFalse(waiting.isDone());
+
+    selector.wakeup();
+    assertTrue(waiting.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void channelSelectionFallsBackToTimedWaits() throws Exception {
+    try (FaceSelector selector = new FaceSelector(new MockFace(), true)) {
+      long start = System.currentTimeMillis();
+      selector.await(100);
+      assertTrue(System.currentTimeMillis() - start >= 90);
+
+      selector.wakeup();
+      start = System.currentTimeMillis();
+      selector.await(5000);
+      assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class HashedTimingWheelTest {
+
+  private HashedTimingWheel<String> instance;
+  private List<String> expired;
+
+  @Before
+  public void before() {
+    instance = new HashedTimingWheel<>(10, 8, 0);
+    expired = new ArrayList<>();
+  }
+
+  @Test
+  public void testExpiresAtDeadline() {
+    instance.schedule("a", 25);
+    instance.schedule("b", 50);
+
+    instance.advance(20, expired::add);
+    assertTrue(expired.isEmpty());
+
+    instance.advance(30, expired::add);
+    assertEquals(Collections.singletonList("a"), expired);
+    assertEquals(1, instance.size());
+  }
+
+  @Test
+  public void testExpiresInLaterRotations() {
+    instance.schedule("a", 85); // shares a bucket with tick 1
+    instance.schedule("b", 15);
+
+    instance.advance(20, expired::add);
+    assertEquals(Collections.singletonList("b"), expired);
+
+    instance.advance(90, expired::add);
+    assertEquals(Arrays.asList("b", "a"), expired);
+  }
+
+  @Test
+  public void testAdvanceAfterSeveralRotations() {
+    for (int i = 0; i < 100; i++) {
+      instance.schedule(Integer.toString(i), i * 10);
+    }
+    instance.schedule("late", 5000);
+
+    instance.advance(2000, expired::add);
+    assertEquals(100, expired.size());
+    assertEquals(1, instance.size());
+  }
+
+  @Test
+  public void testCancel() {
+    HashedTimingWheel.Timeout<String> a = instance.schedule("a", 10);
+    instance.schedule("b", 10);
+    a.cancel();
+    a.cancel();
+
+    instance.advance(100, expired::add);
+    assertEquals(Collections.singletonList("b"), expired);
+    assertEquals(0, instance.size());
+  }
+
+  @Test
+  public void testPastDeadlineExpiresOnNextAdvance() {
+    instance.advance(100, expired::add);
+    instance.schedule("a", 0);
+
+    instance.advance(110, expired::add);
+    assertEquals(Collections.singletonList("a"), expired);
+  }
+}
@@ -19,9 +19,10 @@ import com.intel.jndn.utils.ContentStore;
 import net.named_data.jndn.Interest;
 import net.named_data.jndn.Name;
 import net.named_data.jndn.util.Blob;
-import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.*;
 
 /**
@@ -38,9 +39,9 @@ public class InMemoryContentStoreTest {
     assertArrayEquals(".".getBytes(), instance.get(new Name("/a")).get().getImmutableArray());
   }
 
-  @Ignore // TODO need bounds on NameTree
   @Test
   public void replacement() throws Exception {
+    ContentStore instance = new InMemoryContentStore(1000, 5, Long.MAX_VALUE, InMemoryContentStore.Eviction.FIFO);
     instance.put(new Name("/a"), new Blob("."));
     instance.put(new Name("/a/b"), new Blob(".."));
     instance.put(new Name("/a/b/c"), new Blob("..."));
@@ -51,9 +52,78 @@ public class InMemoryContentStoreTest {
     instance.put(new Name("/replace/oldest"), new Blob("."));
 
     assertFalse(instance.has(new Name("/a")));
+    assertTrue(instance.has(new Name("/a/b")));
     assertTrue(instance.has(new Name("/replace/oldest")));
   }
 
+  @Test
+  public void byteBudget() throws Exception {
+    InMemoryContentStore instance = new InMemoryContentStore(1000, 100, 5, InMemoryContentStore.Eviction.FIFO);
+    instance.put(new Name("/a/1"), new Blob(".."));
+    instance.put(new Name("/a/2"), new Blob(".."));
+    instance.put(new Name("/a/3"), new Blob(".."));
+
+    assertFalse(instance.has(new Name("/a/1")));
+    assertTrue(instance.has(new Name("/a/3")));
+    assertEquals(2, instance.size());
+    assertEquals(4, instance.bytes());
+    assertEquals(1, instance.evictions());
+  }
+
+  @Test
+  public void leastRecentlyUsedEviction() throws Exception {
+    InMemoryContentStore instance = new InMemoryContentStore(1000, 2, Long.MAX_VALUE, InMemoryContentStore.Eviction.LRU);
+    instance.put(new Name("/a/1"), new Blob("."));
+    instance.put(new Name("/a/2"), new Blob("."));
+    assertTrue(instance.get(new Name("/a/1")).isPresent());
+
+    instance.put(new Name("/a/3"), new Blob("."));
+
+    assertTrue(instance.has(new Name("/a/1")));
+    assertFalse(instance.has(new Name("/a/2")));
+  }
+
+  @Test
+  public void lruForgetsOldestRetrievalsBetweenWrites() throws Exception {
+    InMemoryContentStore instance = new InMemoryContentStore(1000, 2, Long.MAX_VALUE, InMemoryContentStore.Eviction.LRU);
+    instance.put(new Name("/a/1"), new Blob("."));
+    instance.put(new Name("/a/2"), new Blob("."));
+    assertTrue(instance.get(new Name("/a/1")).isPresent());
+    for (int i = 0; i < InMemoryContentStore.MAX_PENDING_RETRIEVALS; i++) {
+      assertTrue(instance.get(new Name("/a/2")).isPresent());
+    }
+
+    instance.put(new Name("/a/3"), new Blob("."));
+
+    assertFalse(instance.has(new Name("/a/1")));
+    assertTrue(instance.has(new Name("/a/2")));
+  }
+
+  @Test
+  public void evictionPrunesEmptyNodes() throws Exception {
+    InMemoryContentStore instance = new InMemoryContentStore(1000, 1, Long.MAX_VALUE, InMemoryContentStore.Eviction.FIFO);
+    instance.put(new Name("/a/b/c/d"), new Blob("."));
+    instance.put(new Name("/x"), new Blob("."));
+
+    Interest interest = new Interest(new Name("/a")).setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    assertFalse(instance.has(interest));
+    assertFalse(instance.get(new Name("/a/b")).isPresent());
+  }
+
+  @Test
+  public void counters() throws Exception {
+    InMemoryContentStore instance = new InMemoryContentStore(1000);
+    instance.put(new Name("/a"), new Blob("."));
+
+    instance.get(new Name("/a"));
+    instance.get(new Name("/b"));
+    instance.get(new Interest(new Name("/a")));
+
+    assertEquals(2, instance.hits());
+    assertEquals(1, instance.misses());
+    assertEquals(0, instance.evictions());
+  }
+
   @Test
   public void push() throws Exception {
     MockFace face = new MockFace();
@@ -66,6 +136,27 @@ public class InMemoryContentStoreTest {
     assertEquals(name.appendSegment(0), face.sentData.get(0).getName()); // TODO this should probably be smarter and avoid appending segments if not needed
   }
 
+  @Test
+  public void pushReplaysCachedEncoding() throws Exception {
+    InMemoryContentStore instance = new InMemoryContentStore(1000);
+    MockFace face = new MockFace();
+    Name name = new Name("/a");
+    instance.put(name, new Blob("."));
+    AtomicInteger processed = new AtomicInteger();
+    instance.addPostProcessingStage(data -> {
+      processed.incrementAndGet();
+      return data;
+    });
+
+    instance.push(face, name);
+    instance.push(face, new Interest(name));
+
+    assertEquals(1, processed.get());
+    assertEquals(2, face.sentData.size());
+    assertEquals(face.sentData.get(0).wireEncode(), face.sentData.get(1).wireEncode());
+    assertTrue(instance.bytes() > 1);
+  }
+
   @Test
   public void clear() throws Exception {
     instance.put(new Name("/a"), new Blob("."));
@@ -89,4 +180,51 @@ public class InMemoryContentStoreTest {
     Interest interest2 = new Interest(new Name("/a")).setChildSelector(Interest.CHILD_SELECTOR_LEFT);
     assertEquals(".", instance.get(interest2).get().toString());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void retrieveWithExclusions() throws Exception {
+    instance.put(new Name("/a/1"), new Blob("."));
+    instance.put(new Name("/a/2"), new Blob(".."));
+    instance.put(new Name("/a/3"), new Blob("..."));
+
+    Interest interest = new Interest(new Name("/a")).setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    interest.getExclude().appendComponent(new Name.Component("3")).appendComponent(new Name.Component("1"));
+    assertEquals("..", instance.get(interest).get().toString());
+
+    interest.getExclude().appendComponent(new Name.Component("2"));
+    assertFalse(instance.has(interest));
+  }
+
+  @Test
+  public void retrieveDescendants() throws Exception {
+    instance.put(new Name("/a/b/c/2"), new Blob(".."));
+    instance.put(new Name("/a/b/c/1"), new Blob("."));
+    instance.put(new Name("/a/x"), new Blob("..."));
+
+    assertEquals(".", instance.get(new Interest(new Name("/a"))).get().toString());
+
+    Interest rightmost = new Interest(new Name("/a/b")).setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    assertEquals(".", instance.get(rightmost).get().toString()); // leftmost beneath the rightmost child
+  }
+
+  @Test
+  public void retrieveWithSuffixComponents() throws Exception {
+    instance.put(new Name("/a"), new Blob("."));
+    instance.put(new Name("/a/b"), new Blob(".."));
+    instance.put(new Name("/a/b/c"), new Blob("..."));
+
+    Interest interest = new Interest(new Name("/a"));
+    interest.setMinSuffixComponents(2);
+    assertEquals("..", instance.get(interest).get().toString());
+
+    interest.setMinSuffixComponents(3);
+    assertEquals("...", instance.get(interest).get().toString());
+
+    interest.setMaxSuffixComponents(2);
+    assertFalse(instance.has(interest));
+
+    Interest exact = new Interest(new Name("/a")).setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    exact.setMaxSuffixComponents(1);
+    assertEquals(".", instance.get(exact).get().toString());
+  }
+}
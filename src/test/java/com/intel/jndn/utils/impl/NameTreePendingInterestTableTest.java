@@ -0,0 +1,100 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.PendingInterestTable;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class NameTreePendingInterestTableTest extends PendingInterestTableTest {
+
+  private NameTreePendingInterestTable instance;
+
+  @Before
+  public void before() {
+    instance = new NameTreePendingInterestTable(5);
+  }
+
+  @Override
+  PendingInterestTable newTable(int maxSize) {
+    return new NameTreePendingInterestTable(maxSize);
+  }
+
+  @Test
+  public void add() throws Exception {
+    Name name = new Name("/a/b/c");
+    instance.add(new Interest(name));
+    assertTrue(instance.has(name));
+    assertFalse(instance.has(new Name("/a/b")));
+    assertEquals(1, instance.size());
+  }
+
+  @Test
+  public void remove() throws Exception {
+    Interest interest = new Interest(new Name("/a/b"));
+    instance.add(interest);
+
+    assertFalse(instance.remove(new Interest(new Name("/a/b"))));
+    assertTrue(instance.remove(interest));
+    assertFalse(instance.has(new Name("/a/b")));
+    assertFalse(instance.remove(interest));
+  }
+
+  @Test
+  public void extract() throws Exception {
+    instance.add(new Interest(new Name("/a")));
+    instance.add(new Interest(new Name("/a/b")));
+    instance.add(new Interest(new Name("/a/b/c")));
+
+    Collection<Interest> extracted = instance.extract(new Name("/a/b"));
+    assertEquals(2, extracted.size());
+    assertEquals(1, instance.size());
+    assertTrue(instance.extract(new Name("/a/b")).isEmpty());
+    assertTrue(instance.has(new Name("/a/b/c")));
+  }
+
+  @Test
+  public void expiresAfterLifetime() throws Exception {
+    instance.add(new Interest(new Name("/a/b"), 1));
+    instance.add(new Interest(new Name("/a/c"), 10000));
+    Thread.sleep(20);
+
+    assertFalse(instance.has(new Name("/a/b")));
+    assertTrue(instance.has(new Name("/a/c")));
+    assertEquals(1, instance.size());
+  }
+
+  @Test
+  public void evictsWhenFull() throws Exception {
+    instance.add(new Interest(new Name("/first"), 1000));
+    for (int i = 0; i < 5; i++) {
+      instance.add(new Interest(new Name("/a").appendSegment(i), 10000));
+    }
+
+    assertEquals(5, instance.size());
+    assertFalse(instance.has(new Name("/first")));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.impl;
+
+import com.intel.jndn.utils.PendingInterestTable;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the {@link PendingInterestTable#has(Interest)} contract; extend this in
+ * descendant tests.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public abstract class PendingInterestTableTest {
+
+  /**
+   * @param maxSize the maximum number of pending interests to keep
+   * @return a new table under test
+   */
+  abstract PendingInterestTable newTable(int maxSize);
+
+  @Test
+  public void hasMatchesExactNamesWithoutChildSelector() throws Exception {
+    PendingInterestTable table = newTable(5);
+    table.add(new Interest(new Name("/a/b/c")));
+
+    assertTrue(table.has(new Interest(new Name("/a/b/c"))));
+    assertFalse(table.has(new Interest(new Name("/a/b"))));
+    assertFalse(table.has(new Interest(new Name("/a/b/c/d"))));
+  }
+
+  @Test
+  public void hasIgnoresPendingPrefixInterests() throws Exception {
+    PendingInterestTable table = newTable(5);
+    Interest latest = new Interest(new Name("/a/b"));
+    latest.setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    table.add(latest);
+
+    assertTrue(table.has(new Interest(new Name("/a/b"))));
+    assertFalse(table.has(new Interest(new Name("/a/b/42"))));
+  }
+
+  @Test
+  public void hasWithChildSelectorMatchesNamesBeneath() throws Exception {
+    PendingInterestTable table = newTable(5);
+    table.add(new Interest(new Name("/a/b/c")));
+
+    for (int selector : new int[]{Interest.CHILD_SELECTOR_LEFT, Interest.CHILD_SELECTOR_RIGHT}) {
+      assertTrue(table.has(new Interest(new Name("/a/b")).setChildSelector(selector)));
+      assertTrue(table.has(new Interest(new Name("/a/b/c")).setChildSelector(selector)));
+      assertFalse(table.has(new Interest(new Name("/a/x")).setChildSelector(selector)));
+    }
+  }
+
+  @Test
+  public void hasWithChildSelectorUnderCrowdedPrefix() throws Exception {
+    PendingInterestTable table = newTable(30000);
+    for (int i = 0; i < 10000; i++) {
+      table.add(new Interest(new Name("/a").appendSegment(i), 10000));
+      table.add(new Interest(new Name("/b").appendSegment(i).append("x"), 10000));
+    }
+
+    for (int selector : new int[]{Interest.CHILD_SELECTOR_LEFT, Interest.CHILD_SELECTOR_RIGHT}) {
+      Interest interest = new Interest(new Name("/a"));
+      interest.setChildSelector(selector);
+      assertTrue(table.has(interest));
+
+      interest.getExclude().appendAny().appendComponent(Name.Component.fromSegment(9998));
+      assertTrue(table.has(interest)); // only the last segment is not excluded
+
+      interest.getExclude().clear();
+      interest.getExclude().appendAny();
+      assertFalse(table.has(interest));
+
+      Interest shallow = new Interest(new Name("/b"));
+      shallow.setChildSelector(selector);
+      shallow.setMaxSuffixComponents(2);
+      assertFalse(table.has(shallow)); // every entry under /b has two more components
+      shallow.setMaxSuffixComponents(3);
+      assertTrue(table.has(shallow));
+    }
+  }
+}
@@ -21,7 +21,12 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.*;
 
@@ -75,6 +80,94 @@ public class SegmentationHelperTest {
     assertEquals("89", segments4.get(2).getContent().toString());
   }
 
+  @Test
+  public void testStreamIteratorMarksOnlyLastSegment() throws Exception {
+    final Data template = new Data(new Name("/segmented/data"));
+    final InputStream content = new ByteArrayInputStream("0123456789".getBytes());
+    Iterator<Data> segments = SegmentationHelper.segmentIterator(template, content, 4);
+
+    Data first = segments.next();
+    assertEquals("0123", first.getContent().toString());
+    assertEquals(0, first.getMetaInfo().getFinalBlockId().getValue().size());
+    assertEquals("4567", segments.next().getContent().toString());
+    Data last = segments.next();
+    assertEquals("89", last.getContent().toString());
+    assertEquals(2, last.getMetaInfo().getFinalBlockId().toSegment());
+    assertFalse(segments.hasNext());
+  }
+
+  @Test
+  public void testStreamIteratorWithKnownLength() throws Exception {
+    final Data template = new Data(new Name("/segmented/data"));
+    final InputStream content = new ByteArrayInputStream("0123456789".getBytes());
+    Iterator<Data> segments = SegmentationHelper.segmentIterator(template, content, 9, 3);
+
+    List<Data> list = new ArrayList<>();
+    segments.forEachRemaining(list::add);
+    assertEquals(3, list.size());
+    assertEquals(2, list.get(0).getMetaInfo().getFinalBlockId().toSegment());
+    assertEquals("678", list.get(2).getContent().toString());
+  }
+
+  @Test
+  public void testStreamIteratorClosesAfterLastSegment() throws Exception {
+    final Data template = new Data(new Name("/segmented/data"));
+    for (long length : new long[]{-1, 0, 9}) {
+      final AtomicBoolean closed = new AtomicBoolean();
+      final InputStream content = new ByteArrayInputStream("0123456789".getBytes()) {
+        @Override
+        public void close() {
+          closed.set(true);
+        }
+      };
+      Iterator<Data> segments = length < 0 ? SegmentationHelper.segmentIterator(template, content, 3)
+          : SegmentationHelper.segmentIterator(template, content, length, 3);
+
+      segments.forEachRemaining(segment -> { });
+      assertTrue("Stream not closed for length " + length, closed.get());
+    }
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void testStreamIteratorWithShortStream() throws Exception {
+    final Data template = new Data(new Name("/segmented/data"));
+    final InputStream content = new ByteArrayInputStream("0123".getBytes());
+    Iterator<Data> segments = SegmentationHelper.segmentIterator(template, content, 10, 3);
+    while (segments.hasNext()) {
+      segments.next();
+    }
+  }
+
+  @Test
+  public void testBufferIterator() throws Exception {
+    final Data template = new Data(new Name("/segmented/data"));
+    ByteBuffer content = ByteBuffer.wrap("0123456789".getBytes());
+    content.position(1);
+    Iterator<Data> segments = SegmentationHelper.segmentIterator(template, content, 5);
+
+    Data first = segments.next();
+    assertEquals("12345", new String(first.getContent().getImmutableArray()));
+    assertEquals(1, first.getMetaInfo().getFinalBlockId().toSegment());
+    assertEquals("6789", new String(segments.next().getContent().getImmutableArray()));
+    assertFalse(segments.hasNext());
+    assertEquals(1, content.position());
+  }
+
+  @Test
+  public void testEmptyContent() throws Exception {
+    final Data template = new Data(new Name("/segmented/data"));
+    assertFalse(SegmentationHelper.segmentIterator(template, ByteBuffer.allocate(0), 5).hasNext());
+    assertFalse(SegmentationHelper.segmentIterator(template, new ByteArrayInputStream(new byte[0]), 5).hasNext());
+    assertTrue(SegmentationHelper.segment(template, new ByteArrayInputStream(new byte[0]), 5).isEmpty());
+  }
+
+  @Test
+  public void testReadAll() throws Exception {
+    byte[] bytes = new byte[10000];
+    bytes[9999] = 42;
+    assertArrayEquals(bytes, SegmentationHelper.readAll(new ByteArrayInputStream(bytes)));
+  }
+
   @Test
   public void isSegmented() {
     Name.Component component = Name.Component.fromNumberWithMarker(42, MARKER);
@@ -16,6 +16,7 @@ package com.intel.jndn.utils.pubsub;
 
 import com.intel.jndn.mock.MeasurableFace;
 import com.intel.jndn.mock.MockForwarder;
+import com.intel.jndn.utils.impl.DefaultFaceEventLoop;
 import com.intel.jndn.utils.impl.InMemoryContentStore;
 import com.intel.jndn.utils.impl.BoundedInMemoryPendingInterestTable;
 import net.named_data.jndn.Face;
@@ -32,11 +33,12 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Andrew Brown, andrew.brown@intel.com
@@ -46,24 +48,24 @@ public class NdnPublisherTest {
   private static final Name PUBLISHER_PREFIX = new Name("/publisher");
   private static final long PUBLISHER_ID = new Random().nextLong();
   private NdnPublisher instance;
+  private BoundedInMemoryPendingInterestTable pendingInterestTable;
   private Face face;
   private MockForwarder forwarder;
+  private final AtomicInteger pushedDatas = new AtomicInteger();
 
   @Before
   public void before() throws Exception {
     forwarder = new MockForwarder();
     face = forwarder.connect();
     NdnAnnouncementService announcementService = new NdnAnnouncementService(face, PUBLISHER_PREFIX);
-    BoundedInMemoryPendingInterestTable pendingInterestTable = new BoundedInMemoryPendingInterestTable(1024);
-    InMemoryContentStore contentStore = new InMemoryContentStore(2000);
+    pendingInterestTable = new BoundedInMemoryPendingInterestTable(1024);
+    InMemoryContentStore contentStore = new CountingContentStore(2000);
     instance = new NdnPublisher(face, PUBLISHER_PREFIX, PUBLISHER_ID, announcementService, pendingInterestTable, contentStore);
-
-    driveFace(face); // TODO preferably do this in MockForwarder; causes failures if run in certain orders
   }
 
   @Test
   public void basicUsage() throws Exception {
-    instance.open();
+    open();
     assertEquals(1, numSentInterests()); // doesn't count prefix registration, only announcement
 
     instance.publish(new Blob("..."));
@@ -83,7 +85,7 @@ public class NdnPublisherTest {
 
   @Test
   public void publish() throws Exception {
-    instance.open();
+    open();
     assertEquals(1, numSentInterests());
 
     instance.publish(new Blob("..."));
@@ -91,9 +93,33 @@ public class NdnPublisherTest {
     assertEquals(1, numSentInterests()); // none more than from opening
   }
 
+  @Test
+  public void publishOnDrivingLoop() throws Exception {
+    Face driven = forwarder.connect();
+    DefaultFaceEventLoop loop = DefaultFaceEventLoop.start(driven);
+    try {
+      NdnPublisher publisher = new NdnPublisher(driven, PUBLISHER_PREFIX, PUBLISHER_ID, new NdnAnnouncementService(driven, PUBLISHER_PREFIX), new BoundedInMemoryPendingInterestTable(1024), new InMemoryContentStore(2000));
+      publisher.open(); // registers the prefix from the loop thread
+
+      CountDownLatch latch = new CountDownLatch(1);
+      Face client = forwarder.connect();
+      client.expressInterest(new Interest(PubSubNamespace.toMessageName(PUBLISHER_PREFIX, PUBLISHER_ID, 0)), (interest, data) -> latch.countDown());
+      client.processEvents();
+
+      publisher.publish(new Blob("..."));
+      for (int i = 0; i < 200 && latch.getCount() > 0; i++) {
+        client.processEvents();
+        latch.await(10, TimeUnit.MILLISECONDS);
+      }
+      assertEquals(0, latch.getCount());
+    } finally {
+      loop.shutdown();
+    }
+  }
+
   @Test
   public void publishWithPendingInterest() throws Exception {
-    instance.open();
+    open();
     assertEquals(1, numSentInterests());
 
     CountDownLatch latch = new CountDownLatch(1);
@@ -114,10 +140,28 @@ public class NdnPublisherTest {
     assertEquals(0, latch.getCount());
   }
 
+  @Test
+  public void publishExtractsPendingInterests() throws Exception {
+    open();
+    Interest latest = new Interest(PubSubNamespace.toPublisherName(PUBLISHER_PREFIX, PUBLISHER_ID));
+    latest.setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    pendingInterestTable.add(latest);
+
+    pendingInterestTable.add(new Interest(new Name("/other")));
+
+    instance.publish(new Blob("..."));
+    assertEquals(1, numSentDatas());
+    assertTrue(pendingInterestTable.extract(latest.getName()).isEmpty());
+    assertTrue(pendingInterestTable.has(new Name("/other")));
+
+    instance.publish(new Blob("..."));
+    assertEquals(1, numSentDatas()); // the pending interest was already satisfied
+  }
+
   @Test
   public void publishAndRespondToNewInterest() throws Exception {
     Face client = forwarder.connect();
-    instance.open();
+    open();
     assertEquals(1, numSentInterests());
 
     instance.publish(new Blob("..."));
@@ -140,8 +184,12 @@ public class NdnPublisherTest {
     assertEquals(0, latch.getCount());
   }
 
+  /**
+   * {@link MeasurableFace#sentDatas()} only counts the packets sent with putData(), not the cached encodings the
+   * content store sends directly; the messages published here fit in a single segment
+   */
   private int numSentDatas() {
-    return ((MeasurableFace) face).sentDatas().size();
+    return ((MeasurableFace) face).sentDatas().size() + pushedDatas.get();
   }
 
   private int numReceivedDatas() {
@@ -152,15 +200,49 @@ public class NdnPublisherTest {
     return ((MeasurableFace) face).sentInterests().size();
   }
 
-  private void driveFace(Face face) {
+  /**
+   * Open the publisher while driving the face from another thread, so that the prefix registration completes; the
+   * face is only processed by the test thread once this returns. TODO preferably do this in MockForwarder
+   */
+  private void open() throws IOException, InterruptedException {
     ScheduledExecutorService pool = Executors.newSingleThreadScheduledExecutor();
-    pool.schedule(() -> {
+    pool.scheduleWithFixedDelay(() -> {
       try {
         face.processEvents();
       } catch (IOException | EncodingException e) {
         LOGGER.log(Level.SEVERE, "Failed to process face events", e);
-        fail(e.getMessage());
       }
-    }, 50, TimeUnit.MILLISECONDS);
+    }, 0, 10, TimeUnit.MILLISECONDS);
+    try {
+      instance.open();
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Count the messages pushed to the face
+   */
+  private class CountingContentStore extends InMemoryContentStore {
+    CountingContentStore(int defaultFreshnessPeriodMs) {
+      super(defaultFreshnessPeriodMs);
+    }
+
+    @Override
+    public void push(Face face, Name name) throws IOException {
+      if (has(name)) {
+        pushedDatas.incrementAndGet();
+      }
+      super.push(face, name);
+    }
+
+    @Override
+    public void push(Face face, Interest interest) throws IOException {
+      if (has(interest)) {
+        pushedDatas.incrementAndGet();
+      }
+      super.push(face, interest);
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+package com.intel.jndn.utils.repository.impl;
+
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import org.junit.Test;
+
+import static com.intel.jndn.utils.repository.impl.RepoHelper.buildData;
+import static com.intel.jndn.utils.repository.impl.RepoHelper.buildFreshData;
+import static com.intel.jndn.utils.repository.impl.RepoHelper.buildInterest;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test {@link NameTreeRepository}.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class NameTreeRepositoryTest extends RepositoryTest {
+
+  public NameTreeRepositoryTest() {
+    instance = new NameTreeRepository();
+  }
+
+  @Test
+  public void testLeftmostWithoutChildSelector() throws DataNotFoundException {
+    instance.put(buildFreshData("/a/c/1"));
+    instance.put(buildFreshData("/a/b/2"));
+    instance.put(buildFreshData("/a/b/1"));
+
+    assertEquals("/a/b/1", instance.get(buildInterest("/a")).getName().toUri());
+  }
+
+  @Test
+  public void testRightmostPrefersChildrenOverExactMatch() throws DataNotFoundException {
+    instance.put(buildFreshData("/a"));
+    instance.put(buildFreshData("/a/b"));
+
+    Interest interest = buildInterest("/a").setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    assertEquals("/a/b", instance.get(interest).getName().toUri());
+
+    Interest exact = buildInterest("/a").setChildSelector(Interest.CHILD_SELECTOR_LEFT);
+    assertEquals("/a", instance.get(exact).getName().toUri());
+  }
+
+  @Test
+  public void testSelectorsFilterCandidates() throws DataNotFoundException {
+    instance.put(buildFreshData("/a"));
+    instance.put(buildFreshData("/a/b"));
+    instance.put(buildFreshData("/a/c/d"));
+
+    Interest interest = buildInterest("/a");
+    interest.setMinSuffixComponents(3);
+    assertEquals("/a/c/d", instance.get(interest).getName().toUri());
+  }
+
+  @Test
+  public void testRightmostAndLeftmostSegments() throws Exception {
+    for (int i = 999; i >= 0; i--) {
+      instance.put(new Data(new Name("/a/file").appendSegment(i)));
+    }
+
+    Interest rightmost = buildInterest("/a/file").setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    assertEquals(999, instance.get(rightmost).getName().get(-1).toSegment());
+    assertEquals(0, instance.get(buildInterest("/a/file")).getName().get(-1).toSegment());
+  }
+
+  @Test(expected = DataNotFoundException.class)
+  public void testOverwrite() throws DataNotFoundException {
+    instance.put(buildData("/a/b"));
+    instance.put(RepoHelper.buildAlmostStaleData("/a/b"));
+
+    Interest interest = buildInterest("/a/b");
+    interest.setMustBeFresh(true);
+    instance.get(interest);
+  }
+}
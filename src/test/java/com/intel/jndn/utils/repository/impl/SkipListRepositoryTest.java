@@ -0,0 +1,71 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+package com.intel.jndn.utils.repository.impl;
+
+import net.named_data.jndn.Interest;
+import net.named_data.jndn.Name;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.intel.jndn.utils.repository.impl.RepoHelper.buildFreshData;
+import static com.intel.jndn.utils.repository.impl.RepoHelper.buildInterest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link SkipListRepository}.
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class SkipListRepositoryTest extends RepositoryTest {
+
+  public SkipListRepositoryTest() {
+    instance = new SkipListRepository();
+  }
+
+  @Test
+  public void testRightmostSkipsUnacceptableChildren() throws DataNotFoundException {
+    instance.put(buildFreshData("/a"));
+    instance.put(buildFreshData("/a/b/1"));
+    instance.put(buildFreshData("/a/c"));
+
+    Interest interest = buildInterest("/a").setChildSelector(Interest.CHILD_SELECTOR_RIGHT);
+    interest.setMinSuffixComponents(3);
+    assertEquals("/a/b/1", instance.get(interest).getName().toUri());
+
+    interest.setMinSuffixComponents(-1);
+    interest.setMaxSuffixComponents(1);
+    assertEquals("/a", instance.get(interest).getName().toUri());
+  }
+
+  @Test
+  public void testConcurrentPutAndGet() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 1000; i++) {
+      Name name = new Name("/a/b").appendSegment(i);
+      pool.submit(() -> instance.put(buildFreshData(name.toUri())));
+      pool.submit(() -> instance.satisfies(buildInterest("/a/b")));
+    }
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(instance.satisfies(new Interest(new Name("/a/b").appendSegment(i))));
+    }
+    assertEquals(0, instance.get(buildInterest("/a/b")).getName().get(-1).toSegment());
+  }
+}
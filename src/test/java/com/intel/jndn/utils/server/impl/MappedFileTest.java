@@ -0,0 +1,68 @@
+/*
+ * jndn-utils
+ * Copyright (c) 2016, Intel Corporation.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms and conditions of the GNU Lesser General Public License,
+ * version 3, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ */
+
+package com.intel.jndn.utils.server.impl;
+
+import net.named_data.jndn.Data;
+import net.named_data.jndn.Name;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test MappedFile
+ *
+ * @author Andrew Brown, andrew.brown@intel.com
+ */
+public class MappedFileTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testSegments() throws Exception {
+    File file = folder.newFile();
+    Files.write(file.toPath(), "0123456789".getBytes());
+    MappedFile instance = new MappedFile(new Data(new Name("/mapped/file")), file.toPath(), 4);
+
+    assertEquals(3, instance.numSegments());
+    Data first = instance.segment(0);
+    assertEquals("/mapped/file/%00%00", first.getName().toUri());
+    assertEquals(2, first.getMetaInfo().getFinalBlockId().toSegment());
+    assertEquals("0123", new String(first.getContent().getImmutableArray()));
+    assertEquals("89", new String(instance.segment(2).getContent().getImmutableArray()));
+    instance.close();
+  }
+
+  @Test
+  public void testEmptyFile() throws Exception {
+    File file = folder.newFile();
+    MappedFile instance = new MappedFile(new Data(new Name("/mapped/empty")), file.toPath(), 4);
+
+    assertEquals(1, instance.numSegments());
+    assertEquals(0, instance.segment(0).getContent().size());
+    instance.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingSegment() throws Exception {
+    File file = folder.newFile();
+    new MappedFile(new Data(new Name("/mapped/empty")), file.toPath(), 4).segment(1);
+  }
+}
@@ -14,19 +14,29 @@
 package com.intel.jndn.utils.server.impl;
 
 import com.intel.jndn.mock.MockForwarder;
+import com.intel.jndn.utils.Repository;
 import com.intel.jndn.utils.client.impl.AdvancedClient;
+import com.intel.jndn.utils.impl.SegmentationHelper;
+import com.intel.jndn.utils.repository.impl.ForLoopRepository;
 import net.named_data.jndn.Data;
 import net.named_data.jndn.Face;
 import net.named_data.jndn.Interest;
 import net.named_data.jndn.Name;
 import net.named_data.jndn.util.Blob;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  *
@@ -34,6 +44,8 @@ import static org.junit.Assert.assertNotNull;
  */
 public class SegmentedServerTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
   private Face face;
   private SegmentedServer instance;
 
@@ -87,6 +99,29 @@ public class SegmentedServerTest {
     AdvancedClient.getDefault().getSync(face, new Name("/test"));
   }
   
+  @Test
+  public void testInjectedRepository() throws Exception {
+    Repository repository = new ForLoopRepository();
+    SegmentedServer server = new SegmentedServer(face, new Name("/test/injected"), repository);
+    server.serve(new Data(new Name("/test/injected/a")));
+
+    assertTrue(repository.satisfies(new Interest(new Name("/test/injected/a"))));
+  }
+
+  @Test
+  public void testServingFile() throws Exception {
+    byte[] bytes = new byte[3 * SegmentationHelper.DEFAULT_SEGMENT_SIZE + 10];
+    new Random(42).nextBytes(bytes);
+    File file = folder.newFile();
+    Files.write(file.toPath(), bytes);
+
+    Name name = new Name("/test/prefix/file");
+    instance.serve(new Data(name), file.toPath());
+
+    Data out = AdvancedClient.getDefault().getSync(face, name);
+    assertArrayEquals(bytes, out.getContent().getImmutableArray());
+  }
+
   @Test
   public void testServingNoContent() throws IOException{
     instance.serve(new Data());